@@ -0,0 +1,160 @@
+import java.util.*;
+
+/**
+ * Implements the Graph interface of a read-only IndexedGraph on top of its primitive methods.
+ */
+public abstract class AbstractIndexedGraph implements IndexedGraph {
+    private int id(String v) {
+        int id = indexOf(v);
+        if (id < 0) throw new IllegalArgumentException("Vertex " + v + " not found in graph.");
+        return id;
+    }
+
+    /**
+     * @param v actor id
+     * @return the distinct co-stars of the actor in increasing id order
+     */
+    protected int[] distinctNeighbors(int v) {
+        int[] buffer = new int[maxNeighbors()];
+        int size = neighbors(v, buffer);
+        Arrays.sort(buffer, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || buffer[i] != buffer[distinct - 1]) buffer[distinct++] = buffer[i];
+        }
+        return Arrays.copyOf(buffer, distinct);
+    }
+
+    /**
+     * @return number of directed edges, i.e. twice the number of co-star pairs
+     */
+    @Override
+    public int numEdges() {
+        int total = 0;
+        for (int v = 0; v < numVertices(); v++) total += degree(v);
+        return total;
+    }
+
+    @Override
+    public Iterable<String> vertices() {
+        return () -> new Iterator<>() {
+            int v = 0;
+
+            @Override
+            public boolean hasNext() {
+                return v < numVertices();
+            }
+
+            @Override
+            public String next() {
+                if (v >= numVertices()) throw new NoSuchElementException();
+                return nameOf(v++);
+            }
+        };
+    }
+
+    @Override
+    public boolean hasVertex(String v) {
+        return indexOf(v) >= 0;
+    }
+
+    @Override
+    public boolean hasEdge(String u, String v) {
+        return hasVertex(u) && hasVertex(v) && !u.equals(v) && sharedMovies(id(u), id(v)).length > 0;
+    }
+
+    /**
+     * Creates the label on demand from the shared movie ids.
+     */
+    @Override
+    public Set<String> getLabel(String u, String v) {
+        if (!hasEdge(u, v)) return null;
+        Set<String> label = new HashSet<>();
+        for (int movie : sharedMovies(id(u), id(v))) label.add(movieName(movie));
+        return Collections.unmodifiableSet(label);
+    }
+
+    @Override
+    public int outDegree(String v) {
+        return degree(id(v));
+    }
+
+    /**
+     * Every edge is stored in both directions, so in-degree is the same as out-degree.
+     */
+    @Override
+    public int inDegree(String v) {
+        return degree(id(v));
+    }
+
+    @Override
+    public Iterable<String> outNeighbors(String v) {
+        int[] neighbors = distinctNeighbors(id(v));
+        return () -> new Iterator<>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < neighbors.length;
+            }
+
+            @Override
+            public String next() {
+                if (i >= neighbors.length) throw new NoSuchElementException();
+                return nameOf(neighbors[i++]);
+            }
+        };
+    }
+
+    @Override
+    public Iterable<String> inNeighbors(String v) {
+        return outNeighbors(v);
+    }
+
+    @Override
+    public void insertVertex(String v) {
+        throw new UnsupportedOperationException(getClass().getName() + " is read-only");
+    }
+
+    @Override
+    public void insertDirected(String u, String v, Set<String> e) {
+        throw new UnsupportedOperationException(getClass().getName() + " is read-only");
+    }
+
+    @Override
+    public void insertUndirected(String u, String v, Set<String> e) {
+        throw new UnsupportedOperationException(getClass().getName() + " is read-only");
+    }
+
+    @Override
+    public void removeVertex(String v) {
+        throw new UnsupportedOperationException(getClass().getName() + " is read-only");
+    }
+
+    @Override
+    public void removeDirected(String u, String v) {
+        throw new UnsupportedOperationException(getClass().getName() + " is read-only");
+    }
+
+    @Override
+    public void removeUndirected(String u, String v) {
+        throw new UnsupportedOperationException(getClass().getName() + " is read-only");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("Vertices: [");
+        for (int v = 0; v < numVertices(); v++) result.append(v > 0 ? ", " : "").append(nameOf(v));
+        result.append("]\nOut edges: {");
+        for (int v = 0; v < numVertices(); v++) {
+            result.append(v > 0 ? ", " : "").append(nameOf(v)).append("={");
+            int[] neighbors = distinctNeighbors(v);
+            for (int i = 0; i < neighbors.length; i++) {
+                result.append(i > 0 ? ", " : "").append(nameOf(neighbors[i])).append('=')
+                        .append(getLabel(nameOf(v), nameOf(neighbors[i])));
+            }
+            result.append('}');
+        }
+        return result.append('}').toString();
+    }
+}
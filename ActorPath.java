@@ -0,0 +1,43 @@
+import java.util.*;
+
+/**
+ * A path through the acting universe: a list of actors, and for each hop a movie the two actors on either side share.
+ */
+public class ActorPath {
+    private final List<String> actors;
+    private final List<String> movies; // movies.get(i) was made by actors.get(i) and actors.get(i+1)
+
+    public ActorPath(List<String> actors, List<String> movies) {
+        if (movies.size() != actors.size() - 1) throw new IllegalArgumentException("need one movie per hop");
+        this.actors = Collections.unmodifiableList(actors);
+        this.movies = Collections.unmodifiableList(movies);
+    }
+
+    /**
+     * @return the actors along the path, from its start to its end
+     */
+    public List<String> actors() {
+        return actors;
+    }
+
+    /**
+     * @return one shared movie per hop, so one fewer than the number of actors
+     */
+    public List<String> movies() {
+        return movies;
+    }
+
+    /**
+     * @return number of hops, i.e. the separation between the two ends
+     */
+    public int length() {
+        return movies.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[").append(actors.get(0));
+        for (int i = 0; i < movies.size(); i++) result.append(" -(").append(movies.get(i)).append(")- ").append(actors.get(i + 1));
+        return result.append("]").toString();
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounded cache of BFS results keyed by source actor, so that switching back to a recent center is a lookup instead
+ * of a new search. Results are kept in least-recently-used order and evicted, oldest first, once their total size
+ * goes over a memory budget; the most recent result is always kept, even if it alone is over budget.
+ * An evicted result's arrays are reused for the next search that misses.
+ */
+public class BFSCache {
+    private IndexedGraph g;
+    private final ForkJoinPool pool; // pool searches run in, or null for graphLibrary.bfs in the caller's thread
+    private final long budget;  // bytes
+    private final LinkedHashMap<Integer, BFSResult> results = new LinkedHashMap<>(16, 0.75f, true); // access order
+    private long bytes;         // total footprint of the cached results
+    private BFSResult spare;    // last evicted result, to be refilled instead of allocating
+    private long hits, misses, evictions;
+
+    /**
+     * @param g graph the results are searches of
+     * @param budget most bytes to keep in cached results
+     */
+    public BFSCache(IndexedGraph g, long budget) {
+        this(g, budget, null);
+    }
+
+    /**
+     * @param g graph the results are searches of
+     * @param budget most bytes to keep in cached results
+     * @param pool pool to run each search in with ParallelBFS, or null to search with graphLibrary.bfs in the caller's
+     *             thread, as a pool of one worker does too: with no other thread to share levels with, the plain
+     *             kernel is faster on a universe the size of IMDB's
+     */
+    public BFSCache(IndexedGraph g, long budget, ForkJoinPool pool) {
+        this.g = g;
+        this.budget = budget;
+        this.pool = pool != null && pool.getParallelism() > 1 ? pool : null;
+    }
+
+    /**
+     * Get the BFS from an actor, searching only if it is not cached. The result is shared with the cache, so it must
+     * not be refilled by the caller.
+     *
+     * @param source actor id
+     * @return the BFS from source
+     */
+    public BFSResult get(int source) {
+        BFSResult result = results.get(source);
+        if (result != null) {
+            hits++;
+            return result;
+        }
+        misses++;
+        result = spare != null && spare.capacity() >= g.numVertices() ? spare : new BFSResult(g.numVertices());
+        spare = null;
+        if (pool != null) ParallelBFS.bfs(g, source, result, pool);
+        else graphLibrary.bfs(g, source, result);
+        result.releaseScratch();
+        results.put(source, result);
+        bytes += result.footprint();
+        // evict least recently used results until back under budget, keeping the new one
+        Iterator<BFSResult> oldest = results.values().iterator();
+        while (bytes > budget && results.size() > 1) {
+            BFSResult evicted = oldest.next();
+            oldest.remove();
+            bytes -= evicted.footprint();
+            evictions++;
+            spare = evicted;
+        }
+        return result;
+    }
+
+    /**
+     * Switch to a changed graph, dropping the results of sources whose distances may have changed. Results of other
+     * sources are still correct: their distances are the same, and none of their tree edges can have been removed.
+     *
+     * @param changed the graph after the change, with the same ids for existing actors
+     * @param affected ids of the actors whose distances to someone may have changed
+     */
+    public void graphChanged(IndexedGraph changed, int[] affected) {
+        g = changed;
+        for (int source : affected) {
+            BFSResult removed = results.remove(source);
+            if (removed != null) bytes -= removed.footprint();
+        }
+    }
+
+    /**
+     * @return number of results cached
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups that needed a search
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * @return number of results evicted to stay within the budget
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * @return approximate number of bytes held by the cached results and the spare
+     */
+    public long footprint() {
+        return bytes + (spare == null ? 0 : spare.footprint());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BFS cache: %d hits, %d misses, %d evictions, %d results in %.1f of %.1f MB",
+                hits, misses, evictions, results.size(), bytes / (double) (1 << 20), budget / (double) (1 << 20));
+    }
+}
@@ -0,0 +1,199 @@
+import java.util.Arrays;
+
+/**
+ * Result of a breadth-first search over an IndexedGraph, stored in int arrays indexed by actor id.
+ * A BFSResult is meant to be reused: graphLibrary.bfs refills it for each new source without clearing anything.
+ * Instead of resetting a visited array, every search gets a new epoch number and a vertex counts as visited only if
+ * its stamp equals the current epoch, so parent and dist entries left over from earlier searches are simply ignored.
+ */
+public class BFSResult {
+    final int[] parent;     // actor id -> id of the actor it was discovered from, valid only where stamp == epoch
+    final int[] dist;       // actor id -> separation from the source, valid only where stamp == epoch
+    final int[] stamp;      // actor id -> epoch of the last search that reached it
+    final int[] order;      // queue of the search; since every actor is queued at most once it never wraps,
+                            // and afterwards holds the reached actors in BFS order
+    int size;               // number of actors reached, including the source
+    int[] levelStarts = new int[2]; // level -> position in order of its first actor, for levels 0..depth+1
+    int depth;              // greatest separation reached
+    int epoch;
+    int source = -1;
+    int[] neighbors = new int[0]; // scratch for IndexedGraph.neighbors
+    int[] movieMarks = new int[0]; // scratch for bipartite searches, stamped with the epoch
+    long[] frontierBits = new long[0], nextBits = new long[0]; // scratch for ParallelBFS, one bit per actor
+
+    /**
+     * Create a result with its own arrays.
+     *
+     * @param n number of actors in the graph to be searched
+     */
+    public BFSResult(int n) {
+        this(new int[n], new int[n]);
+    }
+
+    /**
+     * Create a result that fills caller-owned arrays.
+     *
+     * @param parent array to receive discovery parents, one entry per actor
+     * @param dist array to receive separations from the source, same length as parent
+     */
+    public BFSResult(int[] parent, int[] dist) {
+        if (parent.length != dist.length) throw new IllegalArgumentException("parent and dist lengths differ");
+        this.parent = parent;
+        this.dist = dist;
+        stamp = new int[parent.length];
+        order = new int[parent.length];
+    }
+
+    /**
+     * Start a new search: bump the epoch, so that every actor counts as unvisited again.
+     */
+    void reset(int source) {
+        if (epoch == Integer.MAX_VALUE) { // out of epochs: clear the stamps once and start counting again
+            Arrays.fill(stamp, 0);
+            Arrays.fill(movieMarks, 0);
+            epoch = 0;
+        }
+        epoch++;
+        this.source = source;
+        size = 0;
+        depth = -1; // no levels until indexLevels
+        levelStarts[0] = 0;
+    }
+
+    /**
+     * @return number of actors this result has room for
+     */
+    public int capacity() {
+        return parent.length;
+    }
+
+    /**
+     * Record where each level starts in BFS order, once the search is done. Separations never decrease along the
+     * order, so each level is a contiguous run.
+     */
+    void indexLevels() {
+        depth = size == 0 ? -1 : dist[order[size - 1]];
+        if (levelStarts.length < depth + 2) levelStarts = new int[depth + 2];
+        int level = 0;
+        for (int i = 0; i < size; i++) {
+            while (level <= dist[order[i]]) levelStarts[level++] = i;
+        }
+        levelStarts[depth + 1] = size;
+    }
+
+    /**
+     * @return greatest separation from the source of any reached actor
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Actors at separation d from the source are vertexAt(levelStart(d)) .. vertexAt(levelStart(d + 1) - 1).
+     *
+     * @param d separation, clamped to 0..depth()+1
+     * @return position in BFS order of the first actor at separation d, or size() past the last level
+     */
+    public int levelStart(int d) {
+        return levelStarts[Math.max(0, Math.min(d, depth + 1))];
+    }
+
+    /**
+     * Like levelStart(d + 1), but without overflowing for d = Integer.MAX_VALUE, a natural "no limit".
+     *
+     * @param d separation
+     * @return position in BFS order just past the last actor at separation d or less
+     */
+    public int levelEnd(int d) {
+        return d == Integer.MAX_VALUE ? size : levelStart(d + 1);
+    }
+
+    /**
+     * @return mean separation from the source of the other actors reached, or 0 if it reached no one
+     */
+    public double averageSeparation() {
+        if (size <= 1) return 0;
+        long total = 0;
+        for (int d = 1; d <= depth; d++) total += (long) d * (levelStart(d + 1) - levelStart(d));
+        return (double) total / (size - 1);
+    }
+
+    /**
+     * @return approximate number of bytes held by this result's arrays
+     */
+    public long footprint() {
+        return 4L * (parent.length + dist.length + stamp.length + order.length + neighbors.length + movieMarks.length
+                + levelStarts.length) + 8L * (frontierBits.length + nextBits.length);
+    }
+
+    /**
+     * Drop the scratch buffers, which only a search needs, so a finished result takes less room while it is kept
+     * around. The next search grows them again.
+     */
+    void releaseScratch() {
+        neighbors = new int[0];
+        movieMarks = new int[0];
+        frontierBits = new long[0];
+        nextBits = new long[0];
+    }
+
+    /**
+     * @return id of the actor the search started from
+     */
+    public int source() {
+        return source;
+    }
+
+    /**
+     * @return number of actors reached, including the source
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i position in BFS order, 0 <= i < size()
+     * @return the i-th actor reached (the source is 0th)
+     */
+    public int vertexAt(int i) {
+        return order[i];
+    }
+
+    /**
+     * @param v actor id
+     * @return whether the search reached the actor
+     */
+    public boolean reachable(int v) {
+        return v >= 0 && v < stamp.length && stamp[v] == epoch;
+    }
+
+    /**
+     * @param v actor id
+     * @return separation from the source, or -1 if unreachable
+     */
+    public int distance(int v) {
+        return reachable(v) ? dist[v] : -1;
+    }
+
+    /**
+     * @param v actor id
+     * @return the actor v was discovered from, or -1 for the source and unreachable actors
+     */
+    public int parent(int v) {
+        return reachable(v) && v != source ? parent[v] : -1;
+    }
+
+    /**
+     * @param v actor id
+     * @return the path from the source to v as actor ids, or null if v is unreachable
+     */
+    public int[] path(int v) {
+        if (!reachable(v)) return null;
+        int[] path = new int[dist[v] + 1];
+        for (int i = dist[v]; i >= 0; i--) {
+            path[i] = v;
+            v = parent[v];
+        }
+        return path;
+    }
+}
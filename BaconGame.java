@@ -1,4 +1,8 @@
+import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
 
 /**
  * Central program for problem set 4
@@ -9,21 +13,54 @@ import java.util.*;
  * @author Connor Hay, Dartmouth CS 10, Spring 2021
  */
 public class BaconGame {
-    Graph<String, Set<String>> universe;
+    IndexedGraph universe;
     String center;
-    Graph<String, Set<String>> BFSTree;
+    BFSResult centerBFS; // BFS from the center, shared with bfsCache
+    BFSCache bfsCache;   // BFS results of recent centers, in the filtered view when there is one
+    MovieYears years;    // release year of each movie
+    FilteredGraph filtered; // view counting only movies of the filter's years, or null to count every movie
+    int[] filterYears;   // earliest and latest years of the filter's movies, when there is one
+    BFSResult forwardScratch, backwardScratch; // reused by the searches of the b command
     Map<String, Double> averageSeparationMap;
+    double[] separations; // average separation by actor id, backing averageSeparationMap
+    double[] separationErrors; // half-width of each separation's 95% interval when estimated, or null when all are exact
+    RankIndex ranks;      // actors in order of degree and of separation
+    ComponentIndex components; // connected component of each actor
+    CastTable casts;      // casts of the last update, or null if none was applied: loads drop theirs once the universe is built
+    String[] fileNames;   // actors, movies and movie-actors files, for rereading the casts
+    GameOptions options;
+    ForkJoinPool pool;
+    final GameMetrics metrics = new GameMetrics(); // load phase timings and command latencies
+    private Scanner input;    // the one reader of standard input, so no scanner buffers lines another needs
 
     /**
      * Start the Bacon Game!
      * Allows manual change of files containing actor and movie data.
+     * See GameOptions for the command line flags.
      */
     public static void main(String[] args) {
         String actors = "bacon/actorsTest.txt";
         String movies = "bacon/moviesTest.txt";
         String movieActors = "bacon/movie-actorsTest.txt";
-        BaconGame running = new BaconGame(actors, movies, movieActors);
-        running.start();
+        GameOptions options = GameOptions.parse(args);
+        BaconGame running;
+        try {
+            running = new BaconGame(actors, movies, movieActors, options);
+        } catch (UncheckedIOException e) {
+            System.err.println("Could not load the universe: " + e.getCause().getMessage());
+            return;
+        }
+        if (options.port < 0) {
+            running.start();
+            return;
+        }
+        try {
+            BaconServer server = new BaconServer(running, options.port);
+            server.start();
+            System.out.println("Serving queries on http://localhost:" + server.port() + "/");
+        } catch (IOException e) {
+            System.err.println("Could not start the server: " + e.getMessage());
+        }
     }
 
     /**
@@ -35,48 +72,186 @@ public class BaconGame {
      * @param movieActorsFileName file with movies and their actors, both as ID number
      */
     public BaconGame(String actorsFileName, String moviesFileName, String movieActorsFileName) {
-        System.out.println("Loading universe... please wait. This may take a minute or two.");
-        universe = new AdjacencyMapGraph<>(); // create the universe
-        // read in movie and actor data
-        Map<Integer, String> actorMap = BaconReader.readIDs(actorsFileName);
-        Map<Integer, String> movieMap = BaconReader.readIDs(moviesFileName);
-        Map<Integer, ArrayList<Integer>> movieActorsMap = BaconReader.readMovieActors(movieActorsFileName);
-        // insert actor names for vertices
-        for(int ID: actorMap.keySet()) universe.insertVertex(actorMap.get(ID));
-        // insert movie name sets for edges
-        for (int movieID: movieMap.keySet()) { // loop over movie names
-            if (movieActorsMap.containsKey(movieID)) {
-                for (int actorID : movieActorsMap.get(movieID)) { // loop over movie's actor list
-                    for (int otherActorID : movieActorsMap.get(movieID)) { // loop again for the other actors
-                        if (actorID != otherActorID) { // exclude self-loops
-                            String actor = actorMap.get(actorID);
-                            String otherActor = actorMap.get(otherActorID);
-                            String movie = movieMap.get(movieID);
-                            if (universe.hasEdge(actor, otherActor)) { // add to existing edge set
-                                Set<String> edgeSet = universe.getLabel(actor, otherActor);
-                                edgeSet.add(movie);
-                                universe.removeDirected(actor, otherActor);
-                                universe.insertDirected(actor, otherActor, edgeSet);
-                            } else { // create new edge set
-                                Set<String> edgeSet = new HashSet<>();
-                                edgeSet.add(movie);
-                                universe.insertDirected(actor, otherActor, edgeSet);
-                            }
-                        }
-                    }
+        this(actorsFileName, moviesFileName, movieActorsFileName, new GameOptions());
+    }
+
+    /**
+     * Constructor as above, with options for how the universe is loaded and stored.
+     * Unless turned off, the universe is opened from a memory-mapped snapshot next to the movie-actors file when one
+     * is up to date with the text files, and a new snapshot is saved after loading from text.
+     *
+     * @param actorsFileName file with actors and their ID numbers
+     * @param moviesFileName file with movies and their ID numbers
+     * @param movieActorsFileName file with movies and their actors, both as ID number
+     * @param options how to load and store the universe
+     */
+    public BaconGame(String actorsFileName, String moviesFileName, String movieActorsFileName, GameOptions options) {
+        System.out.println("Loading universe... please wait.");
+        center = "Kevin Bacon"; // initialize with Kevin as the center
+        this.options = options;
+        fileNames = new String[] {actorsFileName, moviesFileName, movieActorsFileName};
+        // snapshots hold the CSR layout, so bipartite and compressed universes are always built from text; each actor
+        // order has its own snapshot, since the ids in it must match those of casts read later for updates
+        String snapshotName = movieActorsFileName + (options.order.equals("input") ? "" : "." + options.order) + ".snapshot";
+        Path snapshot = options.snapshot && !options.bipartite && !options.compressed ? Paths.get(snapshotName) : null;
+        Path[] sources = {Paths.get(actorsFileName), Paths.get(moviesFileName), Paths.get(movieActorsFileName)};
+        MappedCSRGraph mapped = null;
+        if (snapshot != null) {
+            GameMetrics.Span phase = metrics.phase("open snapshot");
+            try {
+                mapped = UniverseSnapshot.open(snapshot, sources);
+            } catch (IOException e) {
+                System.err.println("Could not read snapshot " + snapshot + ": " + e.getMessage());
+            }
+            phase.end();
+        }
+        pool = options.pool();
+        if (mapped != null) {
+            universe = mapped;
+            separations = mapped.separations();
+            GameMetrics.Span phase = metrics.phase("components");
+            components = ComponentIndex.fromGraph(universe, pool);
+            phase.end();
+        } else {
+            // read in movie and actor data
+            GameMetrics.Span phase = metrics.phase("read");
+            CastTable table = readCasts();
+            phase.end();
+            phase = metrics.phase("order");
+            table = VertexOrder.apply(table, options.order, pool);
+            phase.end();
+            // create the universe, with movie name sets for edges between every pair of actors in a movie
+            phase = metrics.phase("build");
+            universe = buildUniverse(table);
+            phase.end();
+            phase = metrics.phase("components");
+            components = ComponentIndex.fromCasts(table, pool);
+            phase.end();
+            // calculate all average separations in this universe
+            // front-loaded these calculations because a map of strings and doubles is not especially memory-demanding
+            computeSeparations();
+            if (snapshot != null && separationErrors == null) { // snapshots only hold exact separations
+                phase = metrics.phase("write snapshot");
+                try {
+                    UniverseSnapshot.write(snapshot, (CSRGraph) universe, separations, sources);
+                } catch (IOException e) {
+                    System.err.println("Could not save snapshot " + snapshot + ": " + e.getMessage());
                 }
+                phase.end();
             }
         }
-        center = "Kevin Bacon"; // initialize with Kevin as the center
-        BFSTree = graphLibrary.bfs(universe, center); // Kevin's BFSTree
-        // calculate all average separations in this universe
-        // front-loaded these calculations because a map of strings and doubles is not especially memory-demanding
-        averageSeparationMap = new HashMap<>();
-        for (String actor: universe.vertices()){
-            Graph<String, Set<String>> actorTree = graphLibrary.bfs(universe, actor);
-            double actorSeparation = graphLibrary.averageSeparation(actorTree, actor);
-            averageSeparationMap.put(actor, actorSeparation);
+        averageSeparationMap = ClosenessEngine.asMap(universe, separations);
+        GameMetrics.Span phase = metrics.phase("ranks");
+        ranks = new RankIndex(universe, separations, pool);
+        phase.end();
+        phase = metrics.phase("center BFS");
+        bfsCache = new BFSCache(universe, options.bfsCacheBytes, pool);
+        centerBFS = bfsCache.get(universe.indexOf(center)); // Kevin's BFS
+        phase.end();
+        phase = metrics.phase("years");
+        years = MovieYears.of(universe);
+        phase.end();
+        forwardScratch = new BFSResult(universe.numVertices());
+        backwardScratch = new BFSResult(universe.numVertices());
+    }
+
+    /**
+     * Calculate every actor's average separation, exactly or, if the options ask for it, by sampling.
+     * When sampling, the candidates for the best centers of the current center's component are then made exact.
+     */
+    private void computeSeparations() {
+        GameMetrics.Span phase = metrics.phase("separations");
+        if (options.samples <= 0) {
+            separations = ClosenessEngine.averageSeparations(universe, components, pool);
+            separationErrors = null;
+        } else {
+            ClosenessEstimate estimate = ClosenessEstimate.sample(universe, options.samples, options.seed, pool);
+            // make the best centers of the center's component exact, since those are the ones c lists
+            int source = universe.indexOf(center);
+            BFSResult component = source < 0 ? null : graphLibrary.bfs(universe, source, new BFSResult(universe.numVertices()));
+            int refined = estimate.refine(universe, options.refine, v -> component == null || component.reachable(v), pool);
+            separations = estimate.separations;
+            separationErrors = estimate.errors;
+            System.out.println("Estimated average separations from " + Math.min(options.samples, universe.numVertices())
+                    + " sampled actors" + (refined > 0 ? ", recomputing " + refined + " top candidates exactly" : ""));
+        }
+        phase.end();
+    }
+
+    /**
+     * Read the actor, movie and movie-actors files.
+     *
+     * @return table of casts, with actors numbered in order of file ID
+     * @throws UncheckedIOException if a file cannot be read or has a malformed line
+     */
+    private CastTable readCasts() {
+        try {
+            return CastTable.fromColumns(BaconReader.readNames(fileNames[0], pool),
+                    BaconReader.readNames(fileNames[1], pool), BaconReader.readCredits(fileNames[2], pool));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param casts table of casts
+     * @return the universe in the storage layout chosen by the options
+     */
+    private IndexedGraph buildUniverse(CastTable casts) {
+        if (options.bipartite) return new BipartiteGraph(casts);
+        return options.compressed ? CompressedGraph.fromCasts(casts, pool) : CSRGraph.fromCasts(casts, pool);
+    }
+
+    /**
+     * Apply a batch of changes to the universe without reloading it. Only the average separations of actors whose
+     * distances to someone may have changed are recomputed, unless that is more than the options' threshold of the
+     * actors, and cached BFS results, including the center's, are dropped only for those actors. Existing actors keep their ids.
+     * The snapshot on disk is left alone, since it is checked against the text files.
+     *
+     * @param update changes to apply
+     * @return number of actors whose separations were recomputed
+     * @throws IllegalArgumentException if the update credits an unknown actor or movie
+     */
+    int applyUpdate(UniverseUpdate update) {
+        // no update yet: the text files numbered in the same order give the universe's ids, whether it was loaded or opened from a snapshot
+        if (casts == null) casts = VertexOrder.apply(readCasts(), options.order, pool);
+        Set<Integer> touched = new HashSet<>();
+        CastTable updated = update.applyTo(casts, touched);
+        IndexedGraph before = universe;
+        IndexedGraph after = buildUniverse(updated);
+        int n = after.numVertices();
+        int limit = (int) (options.recomputeThreshold * n);
+        int[] affected = ClosenessEngine.affectedSources(before, after, touched, limit);
+        boolean everyone = affected == null || affected.length > limit;
+        if (everyone) {
+            affected = new int[n]; // too much changed; recompute everyone
+            for (int v = 0; v < n; v++) affected[v] = v;
         }
+
+        casts = updated;
+        universe = after;
+        components = ComponentIndex.fromCasts(casts, pool);
+        if (everyone && options.samples > 0) computeSeparations();
+        else {
+            double[] recomputed = Arrays.copyOf(separations, n);
+            ClosenessEngine.averageSeparations(universe, affected, recomputed, pool);
+            separations = recomputed;
+            if (separationErrors != null) { // the recomputed estimates are now exact
+                separationErrors = Arrays.copyOf(separationErrors, n);
+                for (int v : affected) separationErrors[v] = 0;
+            }
+        }
+        averageSeparationMap = ClosenessEngine.asMap(universe, separations);
+        ranks = new RankIndex(universe, separations, pool);
+        years = MovieYears.of(universe);
+        if (filtered == null) bfsCache.graphChanged(universe, affected);
+        else filtered = viewOf(filterYears[0], filterYears[1]); // a new view of the new universe, with a new cache
+        centerBFS = bfsCache.get(universe.indexOf(center));
+        if (forwardScratch.capacity() < n) {
+            forwardScratch = new BFSResult(n);
+            backwardScratch = new BFSResult(n);
+        }
+        return affected.length;
     }
 
     /**
@@ -86,73 +261,203 @@ public class BaconGame {
         System.out.println(
                 """
                 Commands:
+                a <file>: apply a file of changes (a|actor ID|name, m|movie ID|name, +|movie ID|actor ID, -|movie ID|actor ID) to the universe
+                b <name> <name>: find a shortest path between any two actors, leaving the center unchanged
                 c <#>: list top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation
                 d <low> <high>: list actors sorted by degree, with degree between low and high
+                f <low> <high>: count only movies released from year low to year high in the b, i, p, s and u commands (low > high counts every movie)
                 i: list actors with infinite separation from the current center
+                m: show load phase timings, command latencies, search counts and memory use
                 p <name>: find path from <name> to current center of the universe
                 s <low> <high>: list actors sorted by non-infinite separation from the current center, with separation between low and high
                 u <name>: make <name> the center of the universe
                 q: quit game
                 """
         );
-        mainMenu();
+        input = new Scanner(System.in);
+        try {
+            mainMenu();
+        } catch (NoSuchElementException e) {
+            // standard input ended partway through a command
+        }
     }
 
     /**
      * Primary user interface of the game. Takes a single character choice, then prompts for more information before
-     * passing choices to a helper method.
+     * passing choices to a helper method, until the game is quit or standard input ends.
      */
     private void mainMenu() {
-        Scanner inputCommands = new Scanner(System.in);
-        System.out.println(center+" is now the center of the acting universe, connected to "+BFSTree.numVertices()+" of "+universe.numVertices()+" actors with average separation "+averageSeparationMap.get(center));
-        System.out.print("Enter a letter >>");
-        String choice = inputCommands.nextLine().substring(0,1); // only accept the first character entered
+        while (true) {
+            if (filtered == null) System.out.println(center+" is now the center of the acting universe, connected to "+centerBFS.size()+" of "+universe.numVertices()+" actors with average separation "+averageSeparationMap.get(center));
+            else System.out.println(center+" is now the center of the acting universe of movies from "+filterYears[0]+" to "+filterYears[1]+", connected to "+centerBFS.size()+" of "+universe.numVertices()+" actors with average separation "+centerBFS.averageSeparation());
+            System.out.print("Enter a letter >>");
+            if (!input.hasNextLine()) return;
+            String line = input.nextLine();
+            String choice = line.isEmpty() ? "" : line.substring(0,1); // only accept the first character entered
+            command(choice);
+            proceed();
+        }
+    }
 
+    /**
+     * Prompt for the rest of a command and run it.
+     *
+     * @param choice the command's letter
+     */
+    private void command(String choice) {
         switch (choice) {
-            case "q" -> Runtime.getRuntime().exit(1);
+            case "q" -> {
+                writeMetrics();
+                Runtime.getRuntime().exit(1);
+            }
+            case "a" -> {
+                System.out.print("Enter the name of a file of changes >>");
+                String fileName = input.nextLine();
+                timed("a", () -> {
+                    try {
+                        int recomputed = applyUpdate(UniverseUpdate.read(fileName));
+                        System.out.println("Updated the universe, recomputing the average separations of " + recomputed + " actors");
+                    } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+                        System.out.println("ERROR: could not apply " + fileName + ": " + e.getMessage());
+                    }
+                });
+            }
+            case "b" -> {
+                String from = readActor(input, "Enter an actor name in the universe >>", actor -> true);
+                String to = readActor(input, "Enter another actor name in the universe >>", actor -> true);
+                timed("b", () -> printPathBetween(from, to));
+            }
             case "c" -> {
                 int max = universe.numVertices();
                 int number;
                 do {
-                    System.out.print("Enter an integer n, such that 1<=|n|<=" + max + " >>");
-                    number = inputCommands.nextInt();
+                    number = readInt("Enter an integer n, such that 1<=|n|<=" + max + " >>");
                 } while (Math.abs(number) > max || number == 0);
-                printCentersOfTheUniverse(number);
+                int centers = number;
+                timed("c", () -> printCentersOfTheUniverse(centers));
             }
             case "d" -> {
-                System.out.print("Enter an integer for the lowest allowed degree >>");
-                int lowD = inputCommands.nextInt();
-                System.out.print("Enter an integer for the highest allowed degree >>");
-                int highD = inputCommands.nextInt();
-                printActorsByDegree(lowD, highD);
+                int lowD = readInt("Enter an integer for the lowest allowed degree >>");
+                int highD = readInt("Enter an integer for the highest allowed degree >>");
+                timed("d", () -> printActorsByDegree(lowD, highD));
             }
-            case "i" -> printInfiniteSeparation();
+            case "f" -> {
+                int lowY = readInt("Enter the earliest year of movies to count >>");
+                int highY = readInt("Enter the latest year of movies to count >>");
+                timed("f", () -> filterMovies(lowY, highY));
+            }
+            case "i" -> timed("i", this::printInfiniteSeparation);
+            case "m" -> printMetrics();
             case "p" -> {
-                String actorName;
-                do {
-                    System.out.print("Enter a connected actor name in the universe >>");
-                    actorName = inputCommands.nextLine();
-                } while (actorName.equals(center) || !BFSTree.hasVertex(actorName));
-                printPathToCenter(actorName);
+                String actorName = readActor(input, "Enter a connected actor name in the universe >>",
+                        actor -> actor != centerBFS.source() && centerBFS.reachable(actor));
+                timed("p", () -> printPathToCenter(actorName));
             }
             case "s" -> {
-                System.out.print("Enter an integer for the lowest allowed separation >>");
-                int lowS = inputCommands.nextInt();
-                System.out.print("Enter an integer for the highest allowed separation >>");
-                int highS = inputCommands.nextInt();
-                printActorsBySeparation(lowS, highS);
+                int lowS = readInt("Enter an integer for the lowest allowed separation >>");
+                int highS = readInt("Enter an integer for the highest allowed separation >>");
+                timed("s", () -> printActorsBySeparation(lowS, highS));
             }
             case "u" -> {
-                String newCenter;
-                do {
-                    System.out.print("Enter an actor name in the universe >>");
-                    newCenter = inputCommands.nextLine();
-                } while (!universe.hasVertex(newCenter));
-                changeCenter(newCenter);
+                String newCenter = readActor(input, "Enter an actor name in the universe >>", actor -> true);
+                timed("u", () -> changeCenter(newCenter));
             }
             default -> System.out.println("ERROR: Invalid character, try again");
         }
-        proceed();
+    }
+
+    /**
+     * Run a command's work, recording how long it took in the metrics.
+     *
+     * @param command the command's letter
+     * @param work the command's work, after its input has been read
+     */
+    private void timed(String command, Runnable work) {
+        GameMetrics.Span timing = metrics.command(command);
+        work.run();
+        timing.end();
+    }
+
+    /**
+     * @return estimated bytes held by each of the game's structures, and by an AdjacencyMapGraph of the same universe
+     */
+    Map<String, Long> footprints() {
+        Map<String, Long> footprints = new LinkedHashMap<>();
+        footprints.put("universe (" + universe.getClass().getSimpleName() + ")", universe.footprint());
+        if (casts != null) footprints.put("casts", casts.footprint());
+        footprints.put("separations", 8L * (separations.length + (separationErrors == null ? 0 : separationErrors.length)));
+        footprints.put("ranks", ranks.footprint());
+        footprints.put("components", components.footprint());
+        footprints.put("BFS cache", bfsCache.footprint());
+        footprints.put("movie years", years.footprint());
+        if (filtered != null) footprints.put("filtered view", filtered.footprint());
+        footprints.put("path search scratch", forwardScratch.footprint() + backwardScratch.footprint());
+        footprints.put("as an AdjacencyMapGraph", GameMetrics.adjacencyMapEstimate(universe));
+        return footprints;
+    }
+
+    /**
+     * Helper method that prints every metric, and writes them as JSON if the options name a file for them
+     */
+    private void printMetrics() {
+        System.out.println(metrics.report(footprints()));
+        writeMetrics();
+    }
+
+    /**
+     * Write the metrics as JSON to the file named by the options, if any.
+     */
+    private void writeMetrics() {
+        if (options.metricsFile == null) return;
+        try {
+            Files.writeString(Paths.get(options.metricsFile), metrics.toJson(footprints()));
+            System.out.println("Wrote metrics to " + options.metricsFile);
+        } catch (IOException e) {
+            System.out.println("ERROR: could not write metrics to " + options.metricsFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper method that prompts until a whole line holding an integer is entered.
+     *
+     * @param prompt prompt to print before each attempt
+     * @return the integer entered
+     */
+    private int readInt(String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            try {
+                return Integer.parseInt(input.nextLine().trim());
+            } catch (NumberFormatException e) {
+                // not an integer; ask again
+            }
+        }
+    }
+
+    /**
+     * Helper method that prompts until an actor name that is accepted is entered. A name that is not in the universe
+     * gets suggestions: names it starts, ignoring case, or failing that names within two typos of it.
+     *
+     * @param input scanner to read from
+     * @param prompt prompt to print before each attempt
+     * @param accept which actor ids are acceptable answers
+     * @return the name entered
+     */
+    private String readActor(Scanner input, String prompt, IntPredicate accept) {
+        while (true) {
+            System.out.print(prompt);
+            String name = input.nextLine();
+            int actor = universe.indexOf(name);
+            if (actor >= 0 && accept.test(actor)) return name;
+            if (actor >= 0 || name.isEmpty()) continue;
+            NameDictionary names = universe.actorNames();
+            int[] suggestions = names.withPrefix(name, 10);
+            if (suggestions.length == 0) suggestions = names.suggest(name, 2, 10);
+            if (suggestions.length == 0) continue;
+            List<String> suggested = new ArrayList<>();
+            for (int id : suggestions) suggested.add(names.name(id));
+            System.out.println("Did you mean: " + suggested + "?");
+        }
     }
 
     /**
@@ -162,14 +467,18 @@ public class BaconGame {
      * @param high higher bound of separation in the list
      */
     private void printActorsBySeparation(int low, int high) {
-        Map<String, Integer> separationMap = new HashMap<>();
-        for (String actor: BFSTree.vertices()) {
-            int separation = graphLibrary.getPath(BFSTree, actor).size()-1;
-            if (separation >= low && separation <= high) separationMap.put(actor, separation);
+        // BFS order is already sorted by separation, so the actors in range are one contiguous slice of it
+        int from = low > high ? 0 : centerBFS.levelStart(low), to = low > high ? 0 : centerBFS.levelEnd(high);
+        StringBuilder line = new StringBuilder("[");
+        for (int i = from; i < to; i++) {
+            if (i > from) line.append(", ");
+            line.append(universe.nameOf(centerBFS.vertexAt(i)));
+            if (line.length() >= 8192) { // stream the list out in pieces rather than building it all
+                System.out.print(line);
+                line.setLength(0);
+            }
         }
-        ArrayList<String> actorList = new ArrayList<>(separationMap.keySet());
-        actorList.sort(Comparator.comparingInt(separationMap::get));
-        System.out.println(actorList);
+        System.out.println(line.append("]"));
     }
 
     /**
@@ -178,15 +487,45 @@ public class BaconGame {
      * @param actorName name of actor in the universe connected to the center
      */
     private void printPathToCenter(String actorName) {
-        List<String> path = graphLibrary.getPath(BFSTree, actorName);
+        List<String> path = new ArrayList<>();
+        for (int actor: centerBFS.path(universe.indexOf(actorName))) path.add(universe.nameOf(actor));
         System.out.println(path);
+        // look up the shared movies only for the hops being printed
+        for (int i = path.size() - 1; i > 0; i--) {
+            System.out.println(path.get(i) + " appeared in " + searched().getLabel(path.get(i), path.get(i - 1)) + " with " + path.get(i - 1));
+        }
+    }
+
+    /**
+     * Helper method that prints a shortest path between two actors, found by bidirectional BFS
+     *
+     * @param from name of an actor in the universe
+     * @param to name of an actor in the universe
+     */
+    private void printPathBetween(String from, String to) {
+        ActorPath path = graphLibrary.shortestPath(searched(), from, to, forwardScratch, backwardScratch);
+        if (path == null) {
+            System.out.println(from + " and " + to + " have infinite separation");
+            return;
+        }
+        System.out.println(path.actors());
+        for (int i = 0; i < path.length(); i++) {
+            System.out.println(path.actors().get(i) + " appeared in " + path.movies().get(i) + " with " + path.actors().get(i + 1));
+        }
     }
 
     /**
      * Helper method to find and display the universe's disconnected actors
      */
     private void printInfiniteSeparation() {
-        System.out.println(graphLibrary.missingVertices(universe, BFSTree));
+        ArrayList<String> missing = new ArrayList<>();
+        int centerID = universe.indexOf(center);
+        for (int actor = 0; actor < universe.numVertices(); actor++) {
+            // components are of the whole universe; in a filtered view, the center's BFS tells who is connected
+            boolean connected = filtered == null ? components.connected(actor, centerID) : centerBFS.reachable(actor);
+            if (!connected) missing.add(universe.nameOf(actor));
+        }
+        System.out.println(missing);
     }
 
     /**
@@ -196,26 +535,70 @@ public class BaconGame {
      */
     private void changeCenter(String actorName) {
         center = actorName; // change center
-        BFSTree = graphLibrary.bfs(universe, center); // New BFSTree
+        centerBFS = bfsCache.get(universe.indexOf(center)); // a lookup if this center was used recently
         System.out.println(center + " is the new center of the universe!");
+        System.out.println(bfsCache);
     }
 
     /**
-     * Helper method to create, sort, and display a restricted list of actors based on degree.
+     * Helper method to count only movies released in a range of years in the searches of the b, i, p, s and u commands,
+     * or every movie again if the range is empty. Nothing is reloaded: the filtered view only marks which movies count.
+     * Degrees, average separations and the ranking of centers stay those of the whole universe.
+     *
+     * @param low earliest year of the movies to count
+     * @param high latest year of the movies to count
+     */
+    private void filterMovies(int low, int high) {
+        if (low > high) {
+            filtered = null;
+            bfsCache = new BFSCache(universe, options.bfsCacheBytes, pool);
+            System.out.println("Counting every movie");
+        } else {
+            filtered = viewOf(low, high);
+            System.out.println("Counting " + filtered.numCounted() + " of " + universe.numMovies() + " movies, those from "
+                    + low + " to " + high);
+        }
+        centerBFS = bfsCache.get(universe.indexOf(center));
+    }
+
+    /**
+     * Helper method that makes a view of the universe counting only movies released in a range of years, and a BFS
+     * cache searching it.
+     *
+     * @param low earliest year of the movies to count
+     * @param high latest year of the movies to count
+     * @return the view
+     */
+    private FilteredGraph viewOf(int low, int high) {
+        FilteredGraph view = new FilteredGraph(universe, years.between(low, high));
+        filterYears = new int[] {low, high};
+        bfsCache = new BFSCache(view, options.bfsCacheBytes, pool);
+        return view;
+    }
+
+    /**
+     * @return the graph the searches of commands run on: the filtered view if there is one, or the whole universe
+     */
+    private IndexedGraph searched() {
+        return filtered != null ? filtered : universe;
+    }
+
+    /**
+     * Helper method to display a restricted list of actors sorted by degree.
      *
      * @param low lower bound of degree in the list
      * @param high higher bound of degree in the list
      */
     private void printActorsByDegree(int low, int high) {
-        ArrayList<String> actorList = new ArrayList<>();
-        for (String actor: universe.vertices()) {
-            int degree = universe.inDegree(actor);
-            if (degree >= low && degree <= high) {
-                actorList.add(actor);
-            }
+        if (filtered != null) System.out.println("Degrees count co-stars in every movie");
+        // actors are ranked by degree once, so the ones in range are a contiguous slice of the ranking
+        int from = low > high ? 0 : ranks.degreeStart(low), to = low > high ? 0 : ranks.degreeEnd(high);
+        StringBuilder line = new StringBuilder("[");
+        for (int i = from; i < to; i++) {
+            if (i > from) line.append(", ");
+            line.append(universe.nameOf(ranks.actorByDegree(i)));
         }
-        actorList.sort(Comparator.comparingInt(actor -> universe.inDegree(actor)));
-        System.out.println(actorList);
+        System.out.println(line.append("]"));
     }
 
     /**
@@ -223,9 +606,7 @@ public class BaconGame {
      */
     private void proceed() {
         System.out.println("\nPress enter to return make another selection from the main menu >>");
-        Scanner check = new Scanner(System.in);
-        check.nextLine(); // wait for a line to be entered
-        mainMenu(); // return to the main menu
+        if (input.hasNextLine()) input.nextLine(); // wait for a line to be entered
     }
 
     /**
@@ -234,27 +615,17 @@ public class BaconGame {
      * @param number of actors to show. positive: top. negative: bottom.
      */
     private void printCentersOfTheUniverse(int number) {
-        ArrayList<String> result = new ArrayList<>();
-        for (String actor: BFSTree.vertices()) result.add(actor); // populate the unordered list
-        // sort using the pre-calculated averageSeparation values of each actor
-        result.sort(Comparator.comparingDouble(actor -> averageSeparationMap.get(actor)));
-
-        //print
-        System.out.print("[");
-        if (number > 0) {
-            // print best to worse
-            for(int i = 0; i < number; i++) {
-                System.out.print(result.get(i) + ": " + averageSeparationMap.get(result.get(i)));
-                if (i != number - 1) System.out.print(", ");
-            }
-        }
-        else {
-            // print worst to better
-            for(int i = result.size() - 1; i >= result.size() + number; i--) {
-                System.out.print(result.get(i) + ": " + averageSeparationMap.get(result.get(i)));
-                if (i != number - 1) System.out.print(", ");
-            }
+        if (filtered != null) System.out.println("Average separations count every movie; listing actors connected to the center in the filtered movies");
+        // walk the pre-ranked actors from the best (or worst) end, skipping those not connected to the center
+        StringBuilder line = new StringBuilder("[");
+        int shown = 0;
+        for (int k = 0; k < ranks.size() && shown < Math.abs(number); k++) {
+            int actor = ranks.actorByCloseness(number > 0 ? k : ranks.size() - 1 - k);
+            if (!centerBFS.reachable(actor)) continue;
+            if (shown++ > 0) line.append(", ");
+            line.append(universe.nameOf(actor)).append(": ").append(separations[actor]);
+            if (separationErrors != null && separationErrors[actor] > 0) line.append(" +/- ").append(separationErrors[actor]);
         }
-        System.out.println("]");
+        System.out.println(line.append("]"));
     }
 }
@@ -1,5 +1,13 @@
 import java.util.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 
 /**
@@ -8,32 +16,436 @@ import java.io.*;
  *     actors: actor ID| actor name
  *     movie-actors: movie ID| actor ID
  *     movies: movie ID| movie name
+ * Files are UTF-8. The column readers scan them as raw bytes through memory-mapped windows, parse IDs without
+ * allocating, and keep names as UTF-8 bytes until they are asked for. Lines that do not fit the format are
+ * reported with their line numbers.
  *
  * @author Connor Hay, Dartmouth CS 10, Spring 2021
  */
 public class BaconReader {
+    static final int WINDOW = 1 << 26; // bytes of a file mapped at a time
+
+    /**
+     * An actor or movie file as columns: the i-th line's ID and name.
+     */
+    public static class Names implements LineHandler {
+        final Path file;
+        int[] ids = new int[16];
+        int[] nameOffsets = new int[17]; // line i's name is nameBytes[nameOffsets[i]] .. nameBytes[nameOffsets[i+1]-1]
+        byte[] nameBytes = new byte[256];
+        int size;
+
+        Names(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void line(MappedByteBuffer buffer, int start, int end, long lineNumber) throws IOException {
+            int bar = separator(buffer, start, end, file, lineNumber);
+            add(parseInt(buffer, start, bar, file, lineNumber), buffer, bar + 1, end);
+        }
+
+        /**
+         * Join the columns read from consecutive ranges of a file, copying the ranges in parallel.
+         */
+        static Names concat(List<Names> parts, ForkJoinPool pool) {
+            if (parts.size() == 1) return parts.get(0);
+            Names result = new Names(parts.isEmpty() ? null : parts.get(0).file);
+            int[] starts = new int[parts.size() + 1], byteStarts = new int[parts.size() + 1];
+            for (int i = 0; i < parts.size(); i++) {
+                starts[i + 1] = starts[i] + parts.get(i).size;
+                byteStarts[i + 1] = Math.addExact(byteStarts[i], parts.get(i).nameOffsets[parts.get(i).size]);
+            }
+            result.size = starts[parts.size()];
+            result.ids = new int[result.size];
+            result.nameOffsets = new int[result.size + 1];
+            result.nameBytes = new byte[byteStarts[parts.size()]];
+            result.nameOffsets[result.size] = byteStarts[parts.size()];
+            ParallelTasks.forEach(pool, parts.size(), i -> {
+                Names part = parts.get(i);
+                System.arraycopy(part.ids, 0, result.ids, starts[i], part.size);
+                for (int j = 0; j < part.size; j++) result.nameOffsets[starts[i] + j] = byteStarts[i] + part.nameOffsets[j];
+                System.arraycopy(part.nameBytes, 0, result.nameBytes, byteStarts[i], part.nameOffsets[part.size]);
+            });
+            return result;
+        }
+
+        void add(int id, MappedByteBuffer buffer, int start, int end) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                nameOffsets = Arrays.copyOf(nameOffsets, size * 2 + 1);
+            }
+            int offset = nameOffsets[size], length = end - start;
+            if (offset + length > nameBytes.length) nameBytes = Arrays.copyOf(nameBytes, Math.max(nameBytes.length * 2, offset + length));
+            buffer.get(start, nameBytes, offset, length);
+            ids[size++] = id;
+            nameOffsets[size] = offset + length;
+        }
+
+        /**
+         * @return number of lines read
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param i line index
+         * @return the ID on that line
+         */
+        public int id(int i) {
+            return ids[i];
+        }
+
+        /**
+         * @param i line index
+         * @return the name on that line, decoded from UTF-8 now
+         */
+        public String name(int i) {
+            return new String(nameBytes, nameOffsets[i], nameOffsets[i + 1] - nameOffsets[i], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Copy the names on some lines into a dictionary, as the UTF-8 bytes they were read as, without decoding them.
+         *
+         * @param lines line indexes, in the order to number the names in
+         * @param count number of lines to take from the start of lines
+         * @return the dictionary, in which id i is the name on line lines[i]
+         */
+        NameDictionary dictionary(int[] lines, int count) {
+            int[] offsets = new int[count + 1];
+            for (int i = 0; i < count; i++) offsets[i + 1] = Math.addExact(offsets[i], nameOffsets[lines[i] + 1] - nameOffsets[lines[i]]);
+            byte[] bytes = new byte[offsets[count]];
+            for (int i = 0; i < count; i++) System.arraycopy(nameBytes, nameOffsets[lines[i]], bytes, offsets[i], offsets[i + 1] - offsets[i]);
+            return new NameDictionary(ByteBuffer.wrap(bytes), IntBuffer.wrap(offsets), null);
+        }
+    }
+
+    /**
+     * A movie-actors file as columns, grouped by movie: the actors of the i-th movie (in increasing movie ID order)
+     * are actors[offsets[i]] .. actors[offsets[i+1]-1], in the order they appear in the file.
+     */
+    public static class Credits {
+        int[] movies;   // distinct movie IDs, increasing
+        int[] offsets;  // start of each movie's actors, length movies.length+1
+        int[] actors;   // actor IDs
+
+        /**
+         * @return number of distinct movies
+         */
+        public int numMovies() {
+            return movies.length;
+        }
+
+        /**
+         * @param movieID movie ID from the file
+         * @return index of the movie in these columns, or -1 if it has no credits
+         */
+        public int indexOf(int movieID) {
+            int i = Arrays.binarySearch(movies, movieID);
+            return i < 0 ? -1 : i;
+        }
+    }
+
+    /**
+     * A line that does not fit the expected format.
+     */
+    public static class MalformedLineException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final long lineNumber;
+        final String problem;
+
+        MalformedLineException(Path file, long lineNumber, String problem) {
+            super(file + ":" + lineNumber + ": " + problem);
+            this.lineNumber = lineNumber;
+            this.problem = problem;
+        }
+    }
+
+    private interface LineHandler {
+        void line(MappedByteBuffer buffer, int start, int end, long lineNumber) throws IOException;
+    }
+
+    /**
+     * Split a file into about the given number of byte ranges, each starting at the beginning of a line.
+     *
+     * @return range boundaries: range i is [bounds[i], bounds[i+1])
+     */
+    static long[] splitLines(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        parts = (int) Math.max(1, Math.min(parts, size / (1 << 20))); // no point in ranges under a megabyte
+        parts = (int) Math.max(parts, (size + WINDOW - 1) / WINDOW);   // each range must fit in one window
+        long[] bounds = new long[parts + 1];
+        bounds[parts] = size;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < parts; i++) {
+            long position = Math.max(bounds[i - 1], size / parts * i - 1); // from the byte before the even split...
+            boolean found = false;
+            while (!found && position < size) { // ...to just past the next newline
+                probe.clear();
+                int read = channel.read(probe, position);
+                for (int j = 0; j < read && !found; j++) {
+                    if (probe.get(j) == '\n') found = true;
+                    position++;
+                }
+                if (read <= 0) break;
+            }
+            bounds[i] = Math.min(position, size);
+        }
+        return bounds;
+    }
+
+    /**
+     * Pass each line of a byte range of a file (without its line terminator) to a handler, mapping the range a window
+     * at a time. Blank lines are skipped.
+     *
+     * @param from start of the range, at the beginning of a line
+     * @param to end of the range, just past a newline or at the end of the file
+     */
+    private static void scanLines(Path file, FileChannel channel, long from, long to, LineHandler handler) throws IOException {
+        long position = from, lineNumber = 0;
+        while (position < to) {
+            int length = (int) Math.min(WINDOW, to - position);
+            boolean last = position + length == to;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) != '\n') continue;
+                lineNumber++;
+                int end = i > start && window.get(i - 1) == '\r' ? i - 1 : i;
+                if (end > start) handler.line(window, start, end, lineNumber);
+                start = i + 1;
+            }
+            if (last) {
+                if (start < length) handler.line(window, start, length, ++lineNumber); // no final newline
+                position = to;
+            } else if (start == 0) {
+                throw new MalformedLineException(file, lineNumber + 1, "line longer than " + WINDOW + " bytes");
+            } else {
+                position += start; // map the next window from the start of the unfinished line
+            }
+        }
+    }
+
+    /**
+     * Scan every line of a file, split into newline-aligned ranges that are scanned in parallel, each by its own
+     * handler. Line numbers passed to a handler count from the start of its range; they are corrected to count from
+     * the start of the file if a range reports a malformed line.
+     *
+     * @param pool pool to scan in, or null to scan the whole file in this thread
+     * @param newHandler creates the handler for one range
+     * @return the handlers, in the order of their ranges in the file
+     */
+    private static <T extends LineHandler> List<T> scanLines(Path file, ForkJoinPool pool, Supplier<T> newHandler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = splitLines(channel, ParallelTasks.parts(pool));
+            List<T> handlers = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) handlers.add(newHandler.get());
+            try {
+                ParallelTasks.forEach(pool, handlers.size(), i -> {
+                    try {
+                        scanLines(file, channel, bounds[i], bounds[i + 1], handlers.get(i));
+                    } catch (MalformedLineException e) {
+                        long before = 0; // renumber relative to the whole file
+                        try {
+                            for (int j = 0; j < i; j++) before += countNewlines(channel, bounds[j], bounds[j + 1]);
+                        } catch (IOException counting) {
+                            e.addSuppressed(counting); // report the line as numbered in its range
+                            throw new UncheckedIOException(e);
+                        }
+                        throw new UncheckedIOException(new MalformedLineException(file, before + e.lineNumber, e.problem));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return handlers;
+        }
+    }
+
+    /**
+     * Count the newlines of a byte range of a file, mapping it a window at a time. A range that ends just past a
+     * newline holds that many lines, blank or not.
+     *
+     * @param from start of the range
+     * @param to end of the range
+     * @return number of newline bytes in the range
+     */
+    private static long countNewlines(FileChannel channel, long from, long to) throws IOException {
+        long newlines = 0;
+        for (long position = from; position < to; position += WINDOW) {
+            int length = (int) Math.min(WINDOW, to - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '\n') newlines++;
+            }
+        }
+        return newlines;
+    }
+
+    /**
+     * Parse a decimal int from bytes without allocating.
+     */
+    private static int parseInt(MappedByteBuffer buffer, int start, int end, Path file, long lineNumber) throws MalformedLineException {
+        boolean negative = end > start && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) throw new MalformedLineException(file, lineNumber, "missing ID");
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) throw new MalformedLineException(file, lineNumber, "ID is not an integer");
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) throw new MalformedLineException(file, lineNumber, "ID out of range");
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw new MalformedLineException(file, lineNumber, "ID out of range");
+        return (int) value;
+    }
+
+    private static int separator(MappedByteBuffer buffer, int start, int end, Path file, long lineNumber) throws MalformedLineException {
+        for (int i = start; i < end; i++) if (buffer.get(i) == '|') return i;
+        throw new MalformedLineException(file, lineNumber, "no | separator");
+    }
+
+    /**
+     * Read an actor or movie file into columns. The name is everything after the first "|".
+     *
+     * @param fileName the file name or its path to open and read
+     * @return the IDs and names, in file order
+     * @throws IOException if the file cannot be read or has a malformed line
+     */
+    public static Names readNames(String fileName) throws IOException {
+        return readNames(fileName, null);
+    }
+
+    /**
+     * Read an actor or movie file into columns, parsing newline-aligned ranges of it in parallel.
+     * The result does not depend on the number of threads.
+     *
+     * @param fileName the file name or its path to open and read
+     * @param pool pool to parse in, or null to parse in this thread
+     * @return the IDs and names, in file order
+     * @throws IOException if the file cannot be read or has a malformed line
+     */
+    public static Names readNames(String fileName, ForkJoinPool pool) throws IOException {
+        Path file = Paths.get(fileName);
+        List<Names> parts = scanLines(file, pool, () -> new Names(file));
+        return Names.concat(parts, pool);
+    }
+
+    /**
+     * Read a movie-actors file into columns grouped by movie.
+     *
+     * @param fileName the file name or its path to open and read
+     * @return the credits
+     * @throws IOException if the file cannot be read or has a malformed line
+     */
+    public static Credits readCredits(String fileName) throws IOException {
+        return readCredits(fileName, null);
+    }
+
+    /**
+     * Read a movie-actors file into columns grouped by movie, parsing newline-aligned ranges of it in parallel.
+     * The result does not depend on the number of threads.
+     *
+     * @param fileName the file name or its path to open and read
+     * @param pool pool to parse in, or null to parse in this thread
+     * @return the credits
+     * @throws IOException if the file cannot be read or has a malformed line
+     */
+    public static Credits readCredits(String fileName, ForkJoinPool pool) throws IOException {
+        Path file = Paths.get(fileName);
+        List<CreditColumns> parts = scanLines(file, pool, () -> new CreditColumns(file));
+        // place each range's lines after those of the ranges before it, then copy the ranges in parallel
+        int[] starts = new int[parts.size() + 1];
+        for (int i = 0; i < parts.size(); i++) starts[i + 1] = starts[i] + parts.get(i).size;
+        int[] movieColumn = new int[starts[parts.size()]], actorColumn = new int[starts[parts.size()]];
+        ParallelTasks.forEach(pool, parts.size(), i -> {
+            System.arraycopy(parts.get(i).movies, 0, movieColumn, starts[i], parts.get(i).size);
+            System.arraycopy(parts.get(i).actors, 0, actorColumn, starts[i], parts.get(i).size);
+        });
+        return groupByMovie(movieColumn, actorColumn, movieColumn.length);
+    }
+
+    /**
+     * Parses the movie ID and actor ID of each line of one range of a movie-actors file.
+     */
+    private static class CreditColumns implements LineHandler {
+        final Path file;
+        int[] movies = new int[16], actors = new int[16];
+        int size;
+
+        CreditColumns(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void line(MappedByteBuffer buffer, int start, int end, long lineNumber) throws IOException {
+            int bar = separator(buffer, start, end, file, lineNumber);
+            if (size == movies.length) {
+                movies = Arrays.copyOf(movies, size * 2);
+                actors = Arrays.copyOf(actors, size * 2);
+            }
+            movies[size] = parseInt(buffer, start, bar, file, lineNumber);
+            actors[size++] = parseInt(buffer, bar + 1, end, file, lineNumber);
+        }
+    }
+
+    /**
+     * Group parallel movie and actor columns by movie ID, keeping each movie's actors in their original order.
+     */
+    static Credits groupByMovie(int[] movieColumn, int[] actorColumn, int size) {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) sorted = movieColumn[i - 1] <= movieColumn[i];
+        int[] order = new int[size]; // line indices in grouped order
+        if (sorted) {
+            for (int i = 0; i < size; i++) order[i] = i;
+        } else { // sort (movie, line) pairs, so lines of the same movie stay in file order
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) keys[i] = ((long) movieColumn[i] << 32) | i;
+            Arrays.sort(keys);
+            for (int i = 0; i < size; i++) order[i] = (int) keys[i];
+        }
+        Credits credits = new Credits();
+        int[] movies = new int[16];
+        int[] offsets = new int[17];
+        credits.actors = new int[size];
+        int numMovies = 0;
+        for (int i = 0; i < size; i++) {
+            int movie = movieColumn[order[i]];
+            if (numMovies == 0 || movie != movies[numMovies - 1]) {
+                if (numMovies == movies.length) {
+                    movies = Arrays.copyOf(movies, numMovies * 2);
+                    offsets = Arrays.copyOf(offsets, numMovies * 2 + 1);
+                }
+                offsets[numMovies] = i;
+                movies[numMovies++] = movie;
+            }
+            credits.actors[i] = actorColumn[order[i]];
+        }
+        offsets[numMovies] = size;
+        credits.movies = Arrays.copyOf(movies, numMovies);
+        credits.offsets = Arrays.copyOf(offsets, numMovies + 1);
+        return credits;
+    }
+
     /**
      * Read from an actor or movie file and return the enclosed data as a map.
      *
      * @param fileName the file name or its path to open and read
      * @return a map containing the actor or movie IDs and the corresponding names
+     * @throws UncheckedIOException if the file cannot be read or has a malformed line
      */
     public static Map<Integer, String> readIDs(String fileName) {
         Map<Integer, String> IDMap = new HashMap<>(); // to hold all the names and their respective IDs
         try {
-            BufferedReader input = new BufferedReader(new FileReader(fileName));
-
-            String currentLine;
-            while ((currentLine = input.readLine()) != null) { // read every line of the file
-                String[] lineContents = currentLine.split("\\|");  // split the line at the |, store the parts in an array
-                String ID = lineContents[0];
-                String Name = lineContents[1];
-                IDMap.put(Integer.parseInt(ID), Name);
-            }
-
-            input.close();
+            Names names = readNames(fileName);
+            for (int i = 0; i < names.size(); i++) IDMap.put(names.id(i), names.name(i));
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
         }
         return IDMap;
     }
@@ -43,33 +455,19 @@ public class BaconReader {
      *
      * @param fileName the file name or its path to open and read
      * @return a map containing the the movie IDs and the corresponding list of actor IDs
+     * @throws UncheckedIOException if the file cannot be read or has a malformed line
      */
     public static Map<Integer, ArrayList<Integer>> readMovieActors(String fileName) {
         Map<Integer, ArrayList<Integer>> movieActors = new HashMap<>(); // to hold all the movies and their respective actors
         try {
-            BufferedReader input = new BufferedReader(new FileReader(fileName));
-
-            String currentLine;
-            while ((currentLine = input.readLine()) != null) { // read every line of the file
-                String[] lineContents = currentLine.split("\\|"); // split the line at the |, store the parts in an array
-                Integer movieID = Integer.parseInt(lineContents[0]);
-                Integer actorID = Integer.parseInt(lineContents[1]);
-                ArrayList<Integer> actorList;
-
-                // check if the movie already has a list (i.e. exists in the map)
-                if (!movieActors.containsKey(movieID)) {
-                    actorList = new ArrayList<>(); // create the list from scratch
-                }
-                else {
-                    actorList = movieActors.get(movieID); // get the existing actor list
-                    movieActors.remove(movieID);
-                }
-                actorList.add(actorID);
-                movieActors.put(movieID, actorList);
+            Credits credits = readCredits(fileName);
+            for (int i = 0; i < credits.numMovies(); i++) {
+                ArrayList<Integer> actorList = new ArrayList<>();
+                for (int j = credits.offsets[i]; j < credits.offsets[i + 1]; j++) actorList.add(credits.actors[j]);
+                movieActors.put(credits.movies[i], actorList);
             }
-            input.close();
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
         }
         return movieActors;
     }
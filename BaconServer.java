@@ -0,0 +1,335 @@
+import com.sun.net.httpserver.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Headless mode of the game: answers the menu's queries as JSON over HTTP, for many users at once.
+ * The universe is frozen once loaded: the server keeps its own final references to the graph, separations, rankings
+ * and components, and never updates them, so requests can read them without locks. Nothing about a request is
+ * shared with other requests; each names its own center and searches with BFS scratch taken from a pool.
+ * Requests run on a virtual thread each where the JDK has them (21 and later), and on a pool of threads otherwise.
+ *
+ * Queries (all GET, names URL-encoded, lists capped at limit entries, 1000 by default):
+ *     /path?from=A&to=B: a shortest path between two actors, with a shared movie for each hop
+ *     /separation?center=C&low=L&high=H: actors at separation L..H from the center, closest first
+ *     /degree?low=L&high=H: actors with L..H co-stars, fewest first
+ *     /centers?center=C&n=N: the N best (or, for negative N, worst) centers of the center's component
+ *     /infinite?center=C: actors with no path to the center
+ *     /metrics: the game's metrics
+ * The center defaults to Kevin Bacon. An unknown actor gets a 404 with suggested names.
+ * /path, /separation and /infinite also take minYear=Y and maxYear=Y, to count only the movies released in those
+ * years; each such request searches its own FilteredGraph view of the universe.
+ */
+public class BaconServer {
+    private static final int DEFAULT_LIMIT = 1000;
+
+    static {
+        // Without TCP_NODELAY, a response's headers and body go out as two small packets, and the second waits on
+        // the client's delayed ack of the first: about 40 ms added to every request on a kept-alive connection.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final IndexedGraph universe;
+    private final double[] separations;
+    private final double[] separationErrors; // null when every separation is exact
+    private final RankIndex ranks;
+    private final ComponentIndex components;
+    private final MovieYears years;
+    private final GameMetrics metrics;
+    private final Queue<BFSResult> scratch = new ConcurrentLinkedQueue<>(); // BFS results not in use by a request
+    private final HttpServer server;
+
+    /**
+     * Freeze a loaded game for serving.
+     *
+     * @param game loaded game, which must not be changed afterwards
+     * @param port port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public BaconServer(BaconGame game, int port) throws IOException {
+        universe = game.universe;
+        separations = game.separations;
+        separationErrors = game.separationErrors;
+        ranks = game.ranks;
+        components = game.components;
+        years = game.years;
+        metrics = game.metrics;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/path", exchange -> handle(exchange, this::path));
+        server.createContext("/separation", exchange -> handle(exchange, this::separation));
+        server.createContext("/degree", exchange -> handle(exchange, this::degree));
+        server.createContext("/centers", exchange -> handle(exchange, this::centers));
+        server.createContext("/infinite", exchange -> handle(exchange, this::infinite));
+        server.createContext("/metrics", exchange -> handle(exchange, query -> metrics.toJson(game.footprints())));
+        server.setExecutor(requestExecutor());
+    }
+
+    /**
+     * One executor task per request: a virtual thread if this JDK has them, found by reflection so that the game
+     * still builds for JDK 17, or else a pool of twice as many threads as cores, since requests block on their sockets.
+     */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newFixedThreadPool(2 * Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Start answering requests, in the background.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop answering requests, waiting up to a second for those in progress.
+     */
+    public void stop() {
+        server.stop(1);
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * A query that is answered with a JSON body.
+     */
+    private interface Query {
+        String answer(Map<String, String> parameters);
+    }
+
+    /**
+     * A query that cannot be answered, with the HTTP status and JSON body to send instead.
+     */
+    private static class QueryException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+        final String body;
+
+        QueryException(int status, String body) {
+            super(body);
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Query query) throws IOException {
+        GameMetrics.Span timing = metrics.command(exchange.getHttpContext().getPath());
+        try {
+            int status = 200;
+            String body;
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) throw new QueryException(405, error("only GET is supported"));
+                body = query.answer(parameters(exchange.getRequestURI().getRawQuery()));
+            } catch (QueryException e) {
+                status = e.status;
+                body = e.body;
+            } catch (RuntimeException e) {
+                status = 500;
+                body = error(String.valueOf(e));
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            timing.end(); // a failed write still took the time
+        }
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) return parameters;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0) continue;
+            parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static String error(String message) {
+        return "{\"error\": " + GameMetrics.quote(message) + "}";
+    }
+
+    /**
+     * @return x as a JSON number, or null if it is not finite
+     */
+    private static String number(double x) {
+        return Double.isFinite(x) ? String.valueOf(x) : "null";
+    }
+
+    private static int intParameter(Map<String, String> parameters, String name, Integer otherwise) {
+        String value = parameters.get(name);
+        if (value == null) {
+            if (otherwise == null) throw new QueryException(400, error("missing parameter " + name));
+            return otherwise;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new QueryException(400, error(name + " must be an integer"));
+        }
+    }
+
+    /**
+     * @return id of the actor named by a parameter
+     * @throws QueryException 400 if the parameter is missing, or 404 with suggestions if there is no such actor
+     */
+    private int actor(Map<String, String> parameters, String name, String otherwise) {
+        String actorName = parameters.getOrDefault(name, otherwise);
+        if (actorName == null) throw new QueryException(400, error("missing parameter " + name));
+        int actor = universe.indexOf(actorName);
+        if (actor >= 0) return actor;
+        NameDictionary names = universe.actorNames();
+        int[] suggestions = names.withPrefix(actorName, 10);
+        if (suggestions.length == 0) suggestions = names.suggest(actorName, 2, 10);
+        StringBuilder body = new StringBuilder("{\"error\": ").append(GameMetrics.quote("no actor named " + actorName))
+                .append(", \"suggestions\": [");
+        for (int i = 0; i < suggestions.length; i++) {
+            body.append(i > 0 ? ", " : "").append(GameMetrics.quote(names.name(suggestions[i])));
+        }
+        throw new QueryException(404, body.append("]}").toString());
+    }
+
+    /**
+     * @return a view of the universe counting only the movies from minYear to maxYear, or null if neither is given
+     */
+    private FilteredGraph filter(Map<String, String> parameters) {
+        if (!parameters.containsKey("minYear") && !parameters.containsKey("maxYear")) return null;
+        int low = intParameter(parameters, "minYear", Integer.MIN_VALUE), high = intParameter(parameters, "maxYear", Integer.MAX_VALUE);
+        return new FilteredGraph(universe, years.between(low, high));
+    }
+
+    private BFSResult takeScratch() {
+        BFSResult result = scratch.poll();
+        return result != null ? result : new BFSResult(universe.numVertices());
+    }
+
+    /**
+     * Append a JSON list of actor names, at most limit of them, and the number there were in all.
+     *
+     * @param body JSON being built
+     * @param actors actor id at each position of a list, such as a BFS order or a ranking
+     * @param count length of the list
+     * @param accept which actors of the list to include
+     * @param limit most names to append
+     */
+    private void appendActors(StringBuilder body, IntUnaryOperator actors, int count, IntPredicate accept, int limit) {
+        body.append("\"actors\": [");
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int actor = actors.applyAsInt(i);
+            if (!accept.test(actor)) continue;
+            if (total < limit) body.append(total > 0 ? ", " : "").append(GameMetrics.quote(universe.nameOf(actor)));
+            total++;
+        }
+        body.append("], \"total\": ").append(total);
+    }
+
+    private String path(Map<String, String> parameters) {
+        int from = actor(parameters, "from", null), to = actor(parameters, "to", null);
+        FilteredGraph filtered = filter(parameters);
+        BFSResult forward = takeScratch(), backward = takeScratch();
+        ActorPath path;
+        try {
+            path = graphLibrary.shortestPath(filtered != null ? filtered : universe, universe.nameOf(from),
+                    universe.nameOf(to), forward, backward);
+        } finally {
+            scratch.add(forward);
+            scratch.add(backward);
+        }
+        StringBuilder body = new StringBuilder("{\"from\": ").append(GameMetrics.quote(universe.nameOf(from)))
+                .append(", \"to\": ").append(GameMetrics.quote(universe.nameOf(to)));
+        if (path == null) return body.append(", \"separation\": null}").toString();
+        body.append(", \"separation\": ").append(path.length()).append(", \"actors\": [");
+        for (int i = 0; i < path.actors().size(); i++) body.append(i > 0 ? ", " : "").append(GameMetrics.quote(path.actors().get(i)));
+        body.append("], \"movies\": [");
+        for (int i = 0; i < path.movies().size(); i++) body.append(i > 0 ? ", " : "").append(GameMetrics.quote(path.movies().get(i)));
+        return body.append("]}").toString();
+    }
+
+    private String separation(Map<String, String> parameters) {
+        int center = actor(parameters, "center", "Kevin Bacon");
+        int low = intParameter(parameters, "low", 0), high = intParameter(parameters, "high", Integer.MAX_VALUE - 1);
+        int limit = intParameter(parameters, "limit", DEFAULT_LIMIT);
+        FilteredGraph filtered = filter(parameters);
+        BFSResult bfs = takeScratch();
+        try {
+            graphLibrary.bfs(filtered != null ? filtered : universe, center, bfs);
+            // BFS order is sorted by separation, so the actors in range are one contiguous slice of it
+            int from = low > high ? 0 : bfs.levelStart(low), to = low > high ? 0 : bfs.levelEnd(high);
+            StringBuilder body = new StringBuilder("{\"center\": ").append(GameMetrics.quote(universe.nameOf(center)))
+                    .append(", \"low\": ").append(low).append(", \"high\": ").append(high).append(", ");
+            appendActors(body, i -> bfs.vertexAt(from + i), to - from, actor -> true, limit);
+            return body.append("}").toString();
+        } finally {
+            scratch.add(bfs);
+        }
+    }
+
+    private String degree(Map<String, String> parameters) {
+        int low = intParameter(parameters, "low", null), high = intParameter(parameters, "high", null);
+        int limit = intParameter(parameters, "limit", DEFAULT_LIMIT);
+        int from = low > high ? 0 : ranks.degreeStart(low), to = low > high ? 0 : ranks.degreeEnd(high);
+        StringBuilder body = new StringBuilder("{\"low\": ").append(low).append(", \"high\": ").append(high).append(", ");
+        appendActors(body, i -> ranks.actorByDegree(from + i), to - from, actor -> true, limit);
+        return body.append("}").toString();
+    }
+
+    private String centers(Map<String, String> parameters) {
+        int center = actor(parameters, "center", "Kevin Bacon");
+        int number = intParameter(parameters, "n", 10);
+        if (number == 0) throw new QueryException(400, error("n must not be 0"));
+        // walk the ranking from the best (or worst) end, keeping only the center's component
+        StringBuilder body = new StringBuilder("{\"center\": ").append(GameMetrics.quote(universe.nameOf(center)))
+                .append(", \"centers\": [");
+        int shown = 0;
+        for (int k = 0; k < ranks.size() && shown < Math.abs(number); k++) {
+            int actor = ranks.actorByCloseness(number > 0 ? k : ranks.size() - 1 - k);
+            if (!components.connected(actor, center)) continue;
+            body.append(shown++ > 0 ? ", " : "").append("{\"name\": ").append(GameMetrics.quote(universe.nameOf(actor)))
+                    .append(", \"separation\": ").append(number(separations[actor]));
+            if (separationErrors != null) body.append(", \"error\": ").append(number(separationErrors[actor]));
+            body.append("}");
+        }
+        return body.append("]}").toString();
+    }
+
+    private String infinite(Map<String, String> parameters) {
+        int center = actor(parameters, "center", "Kevin Bacon");
+        int limit = intParameter(parameters, "limit", DEFAULT_LIMIT);
+        FilteredGraph filtered = filter(parameters);
+        StringBuilder body = new StringBuilder("{\"center\": ").append(GameMetrics.quote(universe.nameOf(center))).append(", ");
+        if (filtered == null) {
+            appendActors(body, actor -> actor, universe.numVertices(), actor -> !components.connected(actor, center), limit);
+            return body.append("}").toString();
+        }
+        // components are of the whole universe, so in a view the center's BFS tells who is connected
+        BFSResult bfs = takeScratch();
+        try {
+            graphLibrary.bfs(filtered, center, bfs);
+            appendActors(body, actor -> actor, universe.numVertices(), actor -> !bfs.reachable(actor), limit);
+            return body.append("}").toString();
+        } finally {
+            scratch.add(bfs);
+        }
+    }
+}
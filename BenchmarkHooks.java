@@ -0,0 +1,152 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Entry points for the JMH benchmarks in bench/. JMH will not run benchmarks in the default package, and classes in
+ * a named package cannot refer to the default package, so the benchmarks reach the game through these methods by
+ * MethodHandle, passing the game's objects around as Object.
+ * Each method does one unit of benchmarked work and returns its result so that it is not optimized away.
+ */
+public class BenchmarkHooks {
+    /**
+     * @return actor and movie name maps and the movie-actors map, read with the line-by-line map readers
+     */
+    public static Object readMaps(String actorsFileName, String moviesFileName, String movieActorsFileName) {
+        return new Object[] {BaconReader.readIDs(actorsFileName), BaconReader.readIDs(moviesFileName),
+                BaconReader.readMovieActors(movieActorsFileName)};
+    }
+
+    /**
+     * @return the table of casts, read with the byte-level column readers
+     */
+    public static Object readColumns(String actorsFileName, String moviesFileName, String movieActorsFileName,
+                                     ForkJoinPool pool) throws IOException {
+        return CastTable.fromColumns(BaconReader.readNames(actorsFileName, pool), BaconReader.readNames(moviesFileName, pool),
+                BaconReader.readCredits(movieActorsFileName, pool));
+    }
+
+    /**
+     * @param casts table of casts from readColumns
+     * @param bipartite whether to build actor-movie incidence lists instead of a CSR graph
+     * @return the universe
+     */
+    public static Object buildUniverse(Object casts, boolean bipartite, ForkJoinPool pool) {
+        return bipartite ? new BipartiteGraph((CastTable) casts) : CSRGraph.fromCasts((CastTable) casts, pool);
+    }
+
+    /**
+     * @param casts table of casts from readColumns
+     * @param layout csr, compressed or bipartite
+     * @param order order to number actors in first, as in the game's --order flag
+     * @return the universe
+     */
+    public static Object buildLayout(Object casts, String layout, String order, ForkJoinPool pool) {
+        CastTable ordered = VertexOrder.apply((CastTable) casts, order, pool);
+        return switch (layout) {
+            case "csr" -> CSRGraph.fromCasts(ordered, pool);
+            case "compressed" -> CompressedGraph.fromCasts(ordered, pool);
+            case "bipartite" -> new BipartiteGraph(ordered);
+            default -> throw new IllegalArgumentException("unknown layout " + layout + ", expected csr, compressed or bipartite");
+        };
+    }
+
+    /**
+     * @return approximate bytes held by the universe's tables
+     */
+    public static long footprint(Object universe) {
+        return ((IndexedGraph) universe).footprint();
+    }
+
+    /**
+     * @return the whole game as the constructor loads it with some command-line flags, separations included
+     */
+    public static Object newGame(String actorsFileName, String moviesFileName, String movieActorsFileName, String[] flags) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // the constructor reports its progress
+        try {
+            return new BaconGame(actorsFileName, moviesFileName, movieActorsFileName, GameOptions.parse(flags));
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * @return id of the actor, for picking search sources
+     */
+    public static int indexOf(Object universe, String name) {
+        return ((IndexedGraph) universe).indexOf(name);
+    }
+
+    /**
+     * @return name of the actor with an id
+     */
+    public static String nameOf(Object universe, int v) {
+        return ((IndexedGraph) universe).nameOf(v);
+    }
+
+    /**
+     * @return number of actors in the universe
+     */
+    public static int numVertices(Object universe) {
+        return ((IndexedGraph) universe).numVertices();
+    }
+
+    /**
+     * @return an empty BFS result with room for the universe
+     */
+    public static Object newBFSResult(Object universe) {
+        return new BFSResult(((IndexedGraph) universe).numVertices());
+    }
+
+    /**
+     * @return number of actors reached by the allocation-free BFS kernel
+     */
+    public static int bfs(Object universe, int source, Object result) {
+        return graphLibrary.bfs((IndexedGraph) universe, source, (BFSResult) result).size();
+    }
+
+    /**
+     * @return number of actors reached by a direction-optimizing ParallelBFS, refilling a result from newBFSResult
+     */
+    public static int parallelBfs(Object universe, int source, Object result, ForkJoinPool pool) {
+        return ParallelBFS.bfs((IndexedGraph) universe, source, (BFSResult) result, pool).size();
+    }
+
+    /**
+     * @return BFS tree built by the generic graphLibrary.bfs
+     */
+    public static Object bfsTree(Object universe, String source) {
+        return graphLibrary.bfs((IndexedGraph) universe, source);
+    }
+
+    /**
+     * @return path from an actor to the root of a BFS tree from bfsTree
+     */
+    @SuppressWarnings("unchecked")
+    public static Object getPath(Object tree, String actor) {
+        return graphLibrary.getPath((Graph<String, Set<String>>) tree, actor);
+    }
+
+    /**
+     * @return average separation of the root of a BFS tree from bfsTree
+     */
+    @SuppressWarnings("unchecked")
+    public static double averageSeparation(Object tree, String root) {
+        return graphLibrary.averageSeparation((Graph<String, Set<String>>) tree, root);
+    }
+
+    /**
+     * @return shortest path between two actors by bidirectional BFS
+     */
+    public static Object shortestPath(Object universe, String a, String b, Object forward, Object backward) {
+        return graphLibrary.shortestPath((IndexedGraph) universe, a, b, (BFSResult) forward, (BFSResult) backward);
+    }
+
+    /**
+     * @return every actor's average separation, from the all-sources pass
+     */
+    public static double[] averageSeparations(Object universe, ForkJoinPool pool) {
+        return ClosenessEngine.averageSeparations((IndexedGraph) universe, pool);
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.*;
+
+/**
+ * Read-only bipartite storage of the acting universe: only actor -> movie and movie -> actor incidence lists are kept,
+ * so memory grows with the number of credits instead of with the number of co-star pairs.
+ * Co-stars are found on the fly by stepping actor -> movie -> actor, and the movies two actors share are found
+ * lazily by intersecting their (sorted) movie lists.
+ */
+public class BipartiteGraph extends AbstractIndexedGraph {
+    private final NameDictionary names;         // actor id <-> actor name
+    private final NameDictionary movieNames;    // movie id -> movie name
+    private final int[] actorOffsets;           // actor id -> start of its movies in actorMovies, length n+1
+    private final int[] actorMovies;            // concatenated sorted movie lists
+    private final int[] castOffsets;            // movie id -> start of its cast in castActors, length numMovies+1
+    private final int[] castActors;             // concatenated sorted casts
+    private final int[] degrees;                // distinct co-star counts, -1 until first asked for
+    private final int maxNeighbors;
+
+    /**
+     * Build the universe from a table of casts with dense ids. Takes time and memory linear in the number of credits.
+     *
+     * @param casts actor and movie names, and each movie's cast
+     */
+    public BipartiteGraph(CastTable casts) {
+        names = casts.actorNames;
+        movieNames = casts.movieNames;
+        castOffsets = casts.castOffsets;
+        castActors = casts.castActors;
+        int n = casts.numActors();
+        actorOffsets = new int[n + 1];
+        actorMovies = casts.moviesByActor(actorOffsets);
+        degrees = new int[n];
+        Arrays.fill(degrees, -1);
+        int max = 0;
+        for (int v = 0; v < n; v++) {
+            int total = 0;
+            for (int i = actorOffsets[v]; i < actorOffsets[v + 1]; i++) total += castSize(actorMovies[i]);
+            max = Math.max(max, total);
+        }
+        maxNeighbors = max;
+    }
+
+    // ---- incidence lists ----
+
+    /**
+     * @param v actor id
+     * @return position in the actor-movie array of the actor's first movie
+     */
+    public int movieStart(int v) {
+        return actorOffsets[v];
+    }
+
+    /**
+     * @param v actor id
+     * @return position in the actor-movie array just past the actor's last movie
+     */
+    public int movieEnd(int v) {
+        return actorOffsets[v + 1];
+    }
+
+    /**
+     * @param i position in the actor-movie array
+     * @return movie id at that position
+     */
+    public int movieAt(int i) {
+        return actorMovies[i];
+    }
+
+    /**
+     * @param movie movie id
+     * @return position in the cast array of the movie's first actor
+     */
+    public int castStart(int movie) {
+        return castOffsets[movie];
+    }
+
+    /**
+     * @param movie movie id
+     * @return position in the cast array just past the movie's last actor
+     */
+    public int castEnd(int movie) {
+        return castOffsets[movie + 1];
+    }
+
+    /**
+     * @param i position in the cast array
+     * @return actor id at that position
+     */
+    public int castAt(int i) {
+        return castActors[i];
+    }
+
+    private int castSize(int movie) {
+        return castOffsets[movie + 1] - castOffsets[movie];
+    }
+
+    /**
+     * Like neighbors(v, dest), but skips movies already expanded during the current search and marks the rest.
+     * In a breadth-first search every actor of a movie is discovered the first time the movie is expanded,
+     * so each movie only has to be expanded once per search.
+     *
+     * @param v actor id
+     * @param dest buffer with room for at least maxNeighbors() ids
+     * @param movieMarks one mark per movie
+     * @param mark value identifying the current search in movieMarks
+     * @return number of ids written
+     */
+    public int neighbors(int v, int[] dest, int[] movieMarks, int mark) {
+        int size = 0;
+        for (int i = actorOffsets[v]; i < actorOffsets[v + 1]; i++) {
+            int movie = actorMovies[i];
+            if (movieMarks[movie] == mark) continue;
+            movieMarks[movie] = mark;
+            for (int j = castOffsets[movie]; j < castOffsets[movie + 1]; j++) {
+                if (castActors[j] != v) dest[size++] = castActors[j];
+            }
+        }
+        return size;
+    }
+
+    // ---- IndexedGraph ----
+
+    @Override
+    public int indexOf(String name) {
+        return names.indexOf(name);
+    }
+
+    @Override
+    public String nameOf(int v) {
+        return names.name(v);
+    }
+
+    @Override
+    public NameDictionary actorNames() {
+        return names;
+    }
+
+    /**
+     * Counted the first time it is asked for, since it takes a pass over the actor's co-stars.
+     */
+    @Override
+    public int degree(int v) {
+        if (degrees[v] < 0) degrees[v] = distinctNeighbors(v).length;
+        return degrees[v];
+    }
+
+    @Override
+    public int maxNeighbors() {
+        return maxNeighbors;
+    }
+
+    /**
+     * Co-stars in more than one movie with the actor are listed once per shared movie.
+     */
+    @Override
+    public int neighbors(int v, int[] dest) {
+        int size = 0;
+        for (int i = actorOffsets[v]; i < actorOffsets[v + 1]; i++) {
+            int movie = actorMovies[i];
+            for (int j = castOffsets[movie]; j < castOffsets[movie + 1]; j++) {
+                if (castActors[j] != v) dest[size++] = castActors[j];
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public int[] sharedMovies(int u, int v) {
+        if (u == v) return new int[0];
+        int[] shared = new int[Math.min(actorOffsets[u + 1] - actorOffsets[u], actorOffsets[v + 1] - actorOffsets[v])];
+        int size = 0;
+        int i = actorOffsets[u], j = actorOffsets[v];
+        while (i < actorOffsets[u + 1] && j < actorOffsets[v + 1]) { // merge the two sorted movie lists
+            if (actorMovies[i] < actorMovies[j]) i++;
+            else if (actorMovies[i] > actorMovies[j]) j++;
+            else {
+                shared[size++] = actorMovies[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(shared, size);
+    }
+
+    @Override
+    public int numMovies() {
+        return movieNames.size();
+    }
+
+    @Override
+    public String movieName(int movie) {
+        return movieNames.name(movie);
+    }
+
+    @Override
+    public long footprint() {
+        return names.footprint() + movieNames.footprint()
+                + 4L * (actorOffsets.length + actorMovies.length + castOffsets.length + castActors.length + degrees.length);
+    }
+
+    @Override
+    public int numVertices() {
+        return names.size();
+    }
+}
@@ -0,0 +1,302 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Read-only compressed sparse row (CSR) graph of the acting universe.
+ * Actors are numbered with dense int ids 0..n-1. The neighbors of actor v are stored, sorted by id, in
+ * neighbors[offsets[v]] .. neighbors[offsets[v+1]-1], and the movies shared along the edge at position i are stored as
+ * a run of int movie ids in edgeMovies[edgeMovieOffsets[i]] .. edgeMovies[edgeMovieOffsets[i+1]-1].
+ *
+ * Implements the Graph interface (with actor names as vertices and sets of movie names as edge labels) so that
+ * graphLibrary keeps working, and exposes primitive fast paths for loops that can work with ids directly.
+ * Actor and movie names are kept as UTF-8 in NameDictionary tables rather than as Strings.
+ * Materializes every co-star pair, so memory grows with the sum of k^2 over movies with k actors; see BipartiteGraph.
+ */
+public class CSRGraph extends AbstractIndexedGraph {
+    private final NameDictionary names;         // actor id <-> actor name
+    private final NameDictionary movieNames;    // movie id -> movie name
+    private final int[] offsets;                // actor id -> start of its row in neighbors, length n+1
+    private final int[] neighbors;              // concatenated sorted neighbor rows
+    private final int[] edgeMovieOffsets;       // edge position -> start of its run in edgeMovies, length numEdges+1
+    private final int[] edgeMovies;             // concatenated sorted movie id runs
+    private final int maxDegree;
+
+    CSRGraph(NameDictionary names, NameDictionary movieNames, int[] offsets, int[] neighbors, int[] edgeMovieOffsets, int[] edgeMovies) {
+        this.names = names;
+        this.movieNames = movieNames;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.edgeMovieOffsets = edgeMovieOffsets;
+        this.edgeMovies = edgeMovies;
+        int max = 0;
+        for (int v = 0; v < names.size(); v++) max = Math.max(max, degree(v));
+        maxDegree = max;
+    }
+
+    /**
+     * Build the universe from the maps produced by BaconReader. Every pair of actors that appear in a movie together
+     * is connected (in both directions) by an edge labeled with all of the movies they share.
+     *
+     * @param actorMap actor IDs and names
+     * @param movieMap movie IDs and names
+     * @param movieActorsMap movie IDs and their lists of actor IDs
+     * @return the universe as a CSR graph
+     */
+    public static CSRGraph fromCasts(Map<Integer, String> actorMap, Map<Integer, String> movieMap,
+                                     Map<Integer, ArrayList<Integer>> movieActorsMap) {
+        return fromCasts(CastTable.fromMaps(actorMap, movieMap, movieActorsMap));
+    }
+
+    /**
+     * Build the universe from a table of casts with dense ids.
+     *
+     * @param casts actor and movie names, and each movie's cast
+     * @return the universe as a CSR graph
+     */
+    public static CSRGraph fromCasts(CastTable casts) {
+        return fromCasts(casts, null);
+    }
+
+    /**
+     * Build the universe from a table of casts with dense ids, in parallel.
+     * Each worker builds the rows of a block of actors into its own partial arrays; a prefix sum over the blocks'
+     * sizes then places each block in the final arrays, and the blocks are copied there in parallel.
+     * Rows depend only on the casts, so the graph is the same for any number of threads.
+     *
+     * @param casts actor and movie names, and each movie's cast
+     * @param pool pool to build in, or null to build in this thread
+     * @return the universe as a CSR graph
+     */
+    public static CSRGraph fromCasts(CastTable casts, ForkJoinPool pool) {
+        int n = casts.numActors();
+        int[] movieOffsets = new int[n + 1];
+        int[] moviesOf = casts.moviesByActor(movieOffsets);
+
+        int numBlocks = Math.max(1, Math.min(n, ParallelTasks.parts(pool)));
+        RowBlock[] blocks = new RowBlock[numBlocks];
+        ParallelTasks.forEach(pool, numBlocks, b ->
+                blocks[b] = new RowBlock(casts, movieOffsets, moviesOf, (int) ((long) n * b / numBlocks), (int) ((long) n * (b + 1) / numBlocks)));
+
+        int[] edgeStarts = new int[numBlocks + 1], movieStarts = new int[numBlocks + 1];
+        for (int b = 0; b < numBlocks; b++) {
+            edgeStarts[b + 1] = Math.addExact(edgeStarts[b], blocks[b].numEdges);
+            movieStarts[b + 1] = Math.addExact(movieStarts[b], blocks[b].numEdgeMovies);
+        }
+        int[] offsets = new int[n + 1];
+        int[] neighbors = new int[edgeStarts[numBlocks]];
+        int[] edgeMovieOffsets = new int[edgeStarts[numBlocks] + 1];
+        int[] edgeMovies = new int[movieStarts[numBlocks]];
+        ParallelTasks.forEach(pool, numBlocks, b -> {
+            RowBlock block = blocks[b];
+            for (int v = block.from; v < block.to; v++) offsets[v + 1] = edgeStarts[b] + block.rowEnds[v - block.from];
+            System.arraycopy(block.neighbors, 0, neighbors, edgeStarts[b], block.numEdges);
+            for (int e = 0; e < block.numEdges; e++) edgeMovieOffsets[edgeStarts[b] + e] = movieStarts[b] + block.edgeMovieOffsets[e];
+            System.arraycopy(block.edgeMovies, 0, edgeMovies, movieStarts[b], block.numEdgeMovies);
+        });
+        edgeMovieOffsets[edgeStarts[numBlocks]] = movieStarts[numBlocks];
+        return new CSRGraph(casts.actorNames, casts.movieNames, offsets, neighbors, edgeMovieOffsets, edgeMovies);
+    }
+
+    /**
+     * The rows of a block of consecutive actors, with positions relative to the start of the block.
+     */
+    private static class RowBlock {
+        final int from, to;         // actor ids in the block
+        final int[] rowEnds;        // end of each actor's row
+        int[] neighbors = new int[16];
+        int[] edgeMovieOffsets = new int[16];
+        int[] edgeMovies = new int[16];
+        int numEdges, numEdgeMovies;
+
+        /**
+         * Build each actor's row from (co-star, movie) pairs packed into longs, so one sort groups them by co-star.
+         */
+        RowBlock(CastTable casts, int[] movieOffsets, int[] moviesOf, int from, int to) {
+            this.from = from;
+            this.to = to;
+            rowEnds = new int[to - from];
+            long[] pairs = new long[16];
+            for (int v = from; v < to; v++) {
+                int numPairs = 0;
+                for (int i = movieOffsets[v]; i < movieOffsets[v + 1]; i++) {
+                    int movie = moviesOf[i];
+                    for (int j = casts.castOffsets[movie]; j < casts.castOffsets[movie + 1]; j++) {
+                        int other = casts.castActors[j];
+                        if (other == v) continue; // exclude self-loops
+                        if (numPairs == pairs.length) pairs = Arrays.copyOf(pairs, numPairs * 2);
+                        pairs[numPairs++] = ((long) other << 32) | movie;
+                    }
+                }
+                Arrays.sort(pairs, 0, numPairs);
+                for (int i = 0; i < numPairs; i++) {
+                    int other = (int) (pairs[i] >>> 32);
+                    if (i == 0 || other != (int) (pairs[i - 1] >>> 32)) { // first movie with a new co-star starts an edge
+                        if (numEdges == neighbors.length) {
+                            neighbors = Arrays.copyOf(neighbors, numEdges * 2);
+                            edgeMovieOffsets = Arrays.copyOf(edgeMovieOffsets, numEdges * 2);
+                        }
+                        edgeMovieOffsets[numEdges] = numEdgeMovies;
+                        neighbors[numEdges++] = other;
+                    }
+                    if (numEdgeMovies == edgeMovies.length) edgeMovies = Arrays.copyOf(edgeMovies, numEdgeMovies * 2);
+                    edgeMovies[numEdgeMovies++] = (int) pairs[i];
+                }
+                rowEnds[v - from] = numEdges;
+            }
+        }
+    }
+
+    // ---- primitive fast paths ----
+
+    /**
+     * @param name actor name
+     * @return the actor's id, or -1 if there is no such actor
+     */
+    public int indexOf(String name) {
+        return names.indexOf(name);
+    }
+
+    /**
+     * @param v actor id
+     * @return the actor's name
+     */
+    public String nameOf(int v) {
+        return names.name(v);
+    }
+
+    /**
+     * @param v actor id
+     * @return number of distinct co-stars of the actor
+     */
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * @param v actor id
+     * @return position in the neighbor array of the actor's first edge
+     */
+    public int neighborStart(int v) {
+        return offsets[v];
+    }
+
+    /**
+     * @param v actor id
+     * @return position in the neighbor array just past the actor's last edge
+     */
+    public int neighborEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    /**
+     * @param edge position in the neighbor array
+     * @return id of the actor at the other end of that edge
+     */
+    public int neighborAt(int edge) {
+        return neighbors[edge];
+    }
+
+    /**
+     * Binary search the row of u for v.
+     *
+     * @param u actor id
+     * @param v actor id
+     * @return position in the neighbor array of the edge from u to v, or -1 if they share no movie
+     */
+    public int edgeIndex(int u, int v) {
+        int edge = Arrays.binarySearch(neighbors, offsets[u], offsets[u + 1], v);
+        return edge < 0 ? -1 : edge;
+    }
+
+    /**
+     * @param edge position in the neighbor array
+     * @return position in the edge movie array of the edge's first movie
+     */
+    public int edgeMovieStart(int edge) {
+        return edgeMovieOffsets[edge];
+    }
+
+    /**
+     * @param edge position in the neighbor array
+     * @return position in the edge movie array just past the edge's last movie
+     */
+    public int edgeMovieEnd(int edge) {
+        return edgeMovieOffsets[edge + 1];
+    }
+
+    /**
+     * @param i position in the edge movie array
+     * @return movie id at that position
+     */
+    public int edgeMovieAt(int i) {
+        return edgeMovies[i];
+    }
+
+    /**
+     * @param edge position in the neighbor array
+     * @return ids of the movies shared along that edge
+     */
+    public int[] edgeMovies(int edge) {
+        return Arrays.copyOfRange(edgeMovies, edgeMovieOffsets[edge], edgeMovieOffsets[edge + 1]);
+    }
+
+    /**
+     * @return number of movies with at least one known actor
+     */
+    public int numMovies() {
+        return movieNames.size();
+    }
+
+    /**
+     * @param movie movie id
+     * @return the movie's name
+     */
+    public String movieName(int movie) {
+        return movieNames.name(movie);
+    }
+
+    // ---- IndexedGraph ----
+
+    @Override
+    public NameDictionary actorNames() {
+        return names;
+    }
+
+    @Override
+    public int maxNeighbors() {
+        return maxDegree;
+    }
+
+    @Override
+    public int neighbors(int v, int[] dest) {
+        System.arraycopy(neighbors, offsets[v], dest, 0, degree(v));
+        return degree(v);
+    }
+
+    @Override
+    public int[] sharedMovies(int u, int v) {
+        int edge = edgeIndex(u, v);
+        return edge < 0 ? new int[0] : edgeMovies(edge);
+    }
+
+    @Override
+    protected int[] distinctNeighbors(int v) {
+        return Arrays.copyOfRange(neighbors, offsets[v], offsets[v + 1]);
+    }
+
+    @Override
+    public long footprint() {
+        return names.footprint() + movieNames.footprint()
+                + 4L * (offsets.length + neighbors.length + edgeMovieOffsets.length + edgeMovies.length);
+    }
+
+    @Override
+    public int numVertices() {
+        return names.size();
+    }
+
+    @Override
+    public int numEdges() {
+        return neighbors.length;
+    }
+}
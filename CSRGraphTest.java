@@ -0,0 +1,42 @@
+/**
+ * Test class for CSRGraph.java
+ * Builds the universe from the bundled test files and checks it through both the Graph interface and the primitive
+ * fast paths. Expected output commented below
+ */
+public class CSRGraphTest {
+    public static void main(String[] args) {
+        CSRGraph testGraph = CSRGraph.fromCasts(BaconReader.readIDs("bacon/actorsTest.txt"),
+                BaconReader.readIDs("bacon/moviesTest.txt"), BaconReader.readMovieActors("bacon/movie-actorsTest.txt"));
+
+        // graph setup check
+        System.out.println("The graph:");
+        System.out.println(testGraph);
+        System.out.println(testGraph.numVertices() + " vertices, " + testGraph.numEdges() + " directed edges");
+
+        System.out.println("fast path check");
+        int alice = testGraph.indexOf("Alice");
+        int bacon = testGraph.indexOf("Kevin Bacon");
+        System.out.println(testGraph.nameOf(alice) + " has degree " + testGraph.degree(alice));
+        for (int movie: testGraph.edgeMovies(testGraph.edgeIndex(alice, bacon))) System.out.println(testGraph.movieName(movie));
+        System.out.println(testGraph.indexOf("Nobody at all") + " " + testGraph.edgeIndex(alice, testGraph.indexOf("Nobody")));
+
+        System.out.println("graphLibrary check");
+        System.out.println(graphLibrary.getPath(graphLibrary.bfs(testGraph, "Kevin Bacon"), "Dartmouth (Earl thereof)"));
+        System.out.println(graphLibrary.averageSeparation(graphLibrary.bfs(testGraph, "Kevin Bacon"), "Kevin Bacon"));
+    }
+
+    /* OUTPUT
+    The graph:
+    Vertices: [Kevin Bacon, Alice, Bob, Charlie, Dartmouth (Earl thereof), Nobody, Nobody's Friend]
+    Out edges: {Kevin Bacon={Alice=[A movie, E movie], Bob=[A movie]}, Alice={Kevin Bacon=[A movie, E movie], Bob=[A movie], Charlie=[D movie]}, Bob={Kevin Bacon=[A movie], Alice=[A movie], Charlie=[C movie]}, Charlie={Alice=[D movie], Bob=[C movie], Dartmouth (Earl thereof)=[B movie]}, Dartmouth (Earl thereof)={Charlie=[B movie]}, Nobody={Nobody's Friend=[F movie]}, Nobody's Friend={Nobody=[F movie]}}
+    7 vertices, 14 directed edges
+    fast path check
+    Alice has degree 3
+    A movie
+    E movie
+    -1 -1
+    graphLibrary check
+    [Kevin Bacon, Alice, Charlie, Dartmouth (Earl thereof)]
+    1.75
+     */
+}
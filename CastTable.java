@@ -0,0 +1,239 @@
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * The universe's raw data with dense ids: actor names, movie names, and each movie's cast.
+ * Casts are stored grouped by movie: the actors of movie m are castActors[castOffsets[m]] .. castActors[castOffsets[m+1]-1],
+ * sorted by id and without repeats.
+ */
+public class CastTable {
+    final NameDictionary actorNames; // actor id <-> actor name, shared with the graphs built from the table
+    final NameDictionary movieNames; // movie id -> movie name, likewise
+    final int[] castOffsets;    // movie id -> start of its cast in castActors, length numMovies+1
+    final int[] castActors;     // concatenated casts
+    final int[] actorFileIDs;   // every actor ID from the files, increasing
+    final int[] actorFileDense; // actor id of each of those IDs
+    final int[] movieFileIDs;   // movie id -> movie ID from the files
+
+    CastTable(NameDictionary actorNames, NameDictionary movieNames, int[] castOffsets, int[] castActors,
+              int[] actorFileIDs, int[] actorFileDense, int[] movieFileIDs) {
+        this.actorNames = actorNames;
+        this.movieNames = movieNames;
+        this.castOffsets = castOffsets;
+        this.castActors = castActors;
+        this.actorFileIDs = actorFileIDs;
+        this.actorFileDense = actorFileDense;
+        this.movieFileIDs = movieFileIDs;
+    }
+
+    /**
+     * Number actors and movies from the maps produced by BaconReader, in order of their file IDs.
+     * Actors sharing a name stay separate actors, told apart by their file IDs (see distinctNames), movies without a
+     * cast are dropped, and credits for unknown actors are ignored.
+     *
+     * @param actorMap actor IDs and names
+     * @param movieMap movie IDs and names
+     * @param movieActorsMap movie IDs and their lists of actor IDs
+     * @return the table
+     */
+    public static CastTable fromMaps(Map<Integer, String> actorMap, Map<Integer, String> movieMap,
+                                     Map<Integer, ArrayList<Integer>> movieActorsMap) {
+        Map<Integer, Integer> actorIDs = new HashMap<>(); // file ID -> dense id
+        int[] actorFileIDs = sortedKeys(actorMap);
+        int[] actorFileDense = new int[actorFileIDs.length];
+        String[] actorNames = new String[actorFileIDs.length];
+        for (int k = 0; k < actorFileIDs.length; k++) {
+            actorIDs.put(actorFileIDs[k], k);
+            actorFileDense[k] = k;
+            actorNames[k] = actorMap.get(actorFileIDs[k]);
+        }
+
+        List<String> movieNames = new ArrayList<>();
+        int[] movieFileIDs = new int[movieMap.size()];
+        int[] castOffsets = new int[movieMap.size() + 1];
+        int[] castActors = new int[16];
+        int size = 0;
+        for (int fileID : sortedKeys(movieMap)) {
+            if (!movieActorsMap.containsKey(fileID)) continue;
+            int start = size;
+            for (int actorID : movieActorsMap.get(fileID)) {
+                Integer id = actorIDs.get(actorID);
+                if (id == null) continue;
+                if (size == castActors.length) castActors = Arrays.copyOf(castActors, size * 2);
+                castActors[size++] = id;
+            }
+            size = start + sortUnique(castActors, start, size);
+            movieFileIDs[movieNames.size()] = fileID;
+            movieNames.add(movieMap.get(fileID));
+            castOffsets[movieNames.size()] = size;
+        }
+        return new CastTable(distinctNames(NameDictionary.of(actorNames), actorFileIDs),
+                NameDictionary.of(movieNames.toArray(new String[0])),
+                Arrays.copyOf(castOffsets, movieNames.size() + 1), Arrays.copyOf(castActors, size),
+                actorFileIDs, actorFileDense, Arrays.copyOf(movieFileIDs, movieNames.size()));
+    }
+
+    /**
+     * Number actors and movies from the columns produced by BaconReader, like fromMaps.
+     * Names are copied as the bytes they were read as, without being decoded, and only those of movies that have a
+     * cast are kept.
+     *
+     * @param actors actor IDs and names
+     * @param movies movie IDs and names
+     * @param credits movie IDs and their actor IDs
+     * @return the table
+     */
+    public static CastTable fromColumns(BaconReader.Names actors, BaconReader.Names movies, BaconReader.Credits credits) {
+        // actor file IDs in increasing order, with the line each came from
+        long[] byID = new long[actors.size()];
+        for (int i = 0; i < actors.size(); i++) byID[i] = ((long) actors.id(i) << 32) | i;
+        Arrays.sort(byID);
+        int[] fileIDs = new int[byID.length];  // sorted actor file IDs
+        int[] denseIDs = new int[byID.length]; // dense id of each of them
+        int[] actorLines = new int[byID.length]; // line of each of them
+        int numFileIDs = 0;
+        for (int k = 0; k < byID.length; k++) {
+            if (k + 1 < byID.length && (byID[k + 1] >> 32) == (byID[k] >> 32)) continue; // a repeated ID keeps its last line
+            actorLines[numFileIDs] = (int) byID[k];
+            fileIDs[numFileIDs] = (int) (byID[k] >> 32);
+            denseIDs[numFileIDs] = numFileIDs++;
+        }
+
+        long[] movieByID = new long[movies.size()];
+        for (int i = 0; i < movies.size(); i++) movieByID[i] = ((long) movies.id(i) << 32) | i;
+        Arrays.sort(movieByID);
+        int[] movieLines = new int[movies.size()];
+        int[] movieFileIDs = new int[movies.size()];
+        int[] castOffsets = new int[movies.size() + 1];
+        int[] castActors = new int[credits.actors.length];
+        int size = 0, numMovies = 0;
+        for (int k = 0; k < movieByID.length; k++) {
+            if (k + 1 < movieByID.length && (movieByID[k + 1] >> 32) == (movieByID[k] >> 32)) continue; // keep last line
+            int credit = credits.indexOf((int) (movieByID[k] >> 32));
+            if (credit < 0) continue;
+            int start = size;
+            for (int i = credits.offsets[credit]; i < credits.offsets[credit + 1]; i++) {
+                int actor = Arrays.binarySearch(fileIDs, 0, numFileIDs, credits.actors[i]);
+                if (actor >= 0) castActors[size++] = denseIDs[actor];
+            }
+            size = start + sortUnique(castActors, start, size);
+            movieFileIDs[numMovies] = (int) (movieByID[k] >> 32);
+            movieLines[numMovies++] = (int) movieByID[k];
+            castOffsets[numMovies] = size;
+        }
+        int[] actorFileIDs = Arrays.copyOf(fileIDs, numFileIDs);
+        return new CastTable(distinctNames(actors.dictionary(actorLines, numFileIDs), actorFileIDs),
+                movies.dictionary(movieLines, numMovies), Arrays.copyOf(castOffsets, numMovies + 1),
+                Arrays.copyOf(castActors, size), actorFileIDs, Arrays.copyOf(denseIDs, numFileIDs),
+                Arrays.copyOf(movieFileIDs, numMovies));
+    }
+
+    /**
+     * Give actors who share a name distinct names, since actors are vertices keyed by name: each of them gets its
+     * file ID appended, as in "John Smith (#1234)". Names used only once are left alone. Actors added later by a
+     * UniverseUpdate are renamed the same way, but the actor already holding the name keeps it.
+     *
+     * @param names actor names, in order of file ID
+     * @param fileIDs each actor's file ID
+     * @return the names, or a renamed copy of them if any are shared
+     */
+    static NameDictionary distinctNames(NameDictionary names, int[] fileIDs) {
+        IntBuffer order = names.sortedIds(); // actors sharing a name are next to each other in name order
+        String[] suffixes = null;
+        for (int i = 1; i < names.size(); i++) {
+            int u = order.get(i - 1), v = order.get(i);
+            if (!names.sameName(u, v)) continue;
+            if (suffixes == null) suffixes = new String[names.size()];
+            suffixes[u] = " (#" + fileIDs[u] + ")";
+            suffixes[v] = " (#" + fileIDs[v] + ")";
+        }
+        return suffixes == null ? names : names.withSuffixes(suffixes);
+    }
+
+    private static int[] sortedKeys(Map<Integer, ?> map) {
+        int[] keys = new int[map.size()];
+        int i = 0;
+        for (int key : map.keySet()) keys[i++] = key;
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Sort a range of an array and squeeze out repeated values.
+     *
+     * @return number of distinct values, now at the start of the range
+     */
+    static int sortUnique(int[] values, int from, int to) {
+        Arrays.sort(values, from, to);
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            if (size == 0 || values[i] != values[from + size - 1]) values[from + size++] = values[i];
+        }
+        return size;
+    }
+
+    public int numActors() {
+        return actorNames.size();
+    }
+
+    public int numMovies() {
+        return movieNames.size();
+    }
+
+    /**
+     * The name tables are counted too, although graphs built from the table share them.
+     *
+     * @return approximate number of bytes held by the table
+     */
+    public long footprint() {
+        return 4L * (castOffsets.length + castActors.length + actorFileIDs.length + actorFileDense.length
+                + movieFileIDs.length) + actorNames.footprint() + movieNames.footprint();
+    }
+
+    /**
+     * @param fileID actor ID from the actors file
+     * @return the actor's id, or -1 if there is no actor with that ID
+     */
+    public int actorOf(int fileID) {
+        int i = Arrays.binarySearch(actorFileIDs, fileID);
+        return i < 0 ? -1 : actorFileDense[i];
+    }
+
+    /**
+     * Renumber the actors, so that actor order[i] becomes actor i. Movies keep their ids, casts stay sorted, and
+     * actors keep their file IDs and names.
+     *
+     * @param order every actor id once, in the order to number them in
+     * @return a new table with the actors renumbered
+     */
+    CastTable relabel(int[] order) {
+        int n = numActors();
+        int[] newIds = new int[n];
+        for (int i = 0; i < n; i++) newIds[order[i]] = i;
+        int[] actors = new int[castActors.length];
+        for (int i = 0; i < actors.length; i++) actors[i] = newIds[castActors[i]];
+        for (int movie = 0; movie < numMovies(); movie++) Arrays.sort(actors, castOffsets[movie], castOffsets[movie + 1]);
+        int[] fileDense = new int[actorFileDense.length];
+        for (int k = 0; k < fileDense.length; k++) fileDense[k] = newIds[actorFileDense[k]];
+        return new CastTable(actorNames.permute(order), movieNames, castOffsets, actors, actorFileIDs, fileDense, movieFileIDs);
+    }
+
+    /**
+     * Invert the casts into each actor's movies (a counting sort by actor).
+     * The movies of actor v are result[offsets[v]] .. result[offsets[v+1]-1], in increasing order.
+     *
+     * @param offsets filled with the start of each actor's movies, length numActors+1
+     * @return the concatenated movie lists
+     */
+    int[] moviesByActor(int[] offsets) {
+        Arrays.fill(offsets, 0);
+        for (int actor : castActors) offsets[actor + 1]++;
+        for (int v = 0; v < numActors(); v++) offsets[v + 1] += offsets[v];
+        int[] movies = new int[castActors.length];
+        int[] fill = Arrays.copyOf(offsets, numActors());
+        for (int movie = 0; movie < numMovies(); movie++) {
+            for (int i = castOffsets[movie]; i < castOffsets[movie + 1]; i++) movies[fill[castActors[i]]++] = movie;
+        }
+        return movies;
+    }
+}
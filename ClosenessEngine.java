@@ -0,0 +1,364 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * All-sources average separation (closeness) of every actor in the universe.
+ * Computes distances only, with no BFS trees: sources are batched 64 at a time into one multi-source BFS (MS-BFS)
+ * whose frontiers are bitsets, with bit i of a vertex's word standing for the i-th source of the batch.
+ * One sweep over the graph then advances all 64 searches a level, and the batches are spread across a ForkJoinPool.
+ */
+public class ClosenessEngine {
+    static final int BATCH = Long.SIZE; // sources per sweep, one per bit
+
+    /**
+     * Average separation of every actor, using every core.
+     *
+     * @param g universe
+     * @return map from actor name to its average separation from the actors it is connected to
+     */
+    public static Map<String, Double> averageSeparationMap(IndexedGraph g) {
+        return asMap(g, averageSeparations(g, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * View an array of per-actor values as a read-only map keyed by actor name, without copying it.
+     *
+     * @param g universe the values belong to
+     * @param separations values indexed by actor id
+     * @return map from actor name to value
+     */
+    public static Map<String, Double> asMap(IndexedGraph g, double[] separations) {
+        return new AbstractMap<>() {
+            @Override
+            public Double get(Object key) {
+                int v = key instanceof String ? g.indexOf((String) key) : -1;
+                return v < 0 ? null : separations[v];
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof String && g.indexOf((String) key) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return separations.length;
+            }
+
+            @Override
+            public Set<Entry<String, Double>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, Double>> iterator() {
+                        return new Iterator<>() {
+                            int v = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return v < separations.length;
+                            }
+
+                            @Override
+                            public Entry<String, Double> next() {
+                                if (v >= separations.length) throw new NoSuchElementException();
+                                Entry<String, Double> entry = new SimpleImmutableEntry<>(g.nameOf(v), separations[v]);
+                                v++;
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return separations.length;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Average separation of every actor from the others in its component. Matches graphLibrary.averageSeparation of
+     * the actor's BFS tree, including 0 for actors not connected to anyone.
+     *
+     * @param g universe
+     * @param pool pool to run the batches in
+     * @return average separation indexed by actor id
+     */
+    public static double[] averageSeparations(IndexedGraph g, ForkJoinPool pool) {
+        return averageSeparations(g, ComponentIndex.fromGraph(g, pool), pool);
+    }
+
+    /**
+     * As above, using the universe's components to spend MS-BFS sweeps only where they pay off. A sweep scans every
+     * actor once per level whatever its sources, so for actors in components smaller than 1/64 of the universe an
+     * ordinary BFS, which touches only the component, is cheaper; actors alone in their component need no search.
+     * The remaining sources are grouped by component, so each batch of 64 stays within one component.
+     *
+     * @param g universe
+     * @param components the universe's connected components
+     * @param pool pool to run the searches in
+     * @return average separation indexed by actor id
+     */
+    public static double[] averageSeparations(IndexedGraph g, ComponentIndex components, ForkJoinPool pool) {
+        int n = g.numVertices();
+        double[] result = new double[n];
+        long[] large = new long[n]; // component in the high half, id in the low half, to sort sources by component
+        int numLarge = 0, numSmall = 0;
+        int[] small = new int[n];
+        for (int v = 0; v < n; v++) {
+            int size = components.componentSize(v);
+            if (size == 1) result[v] = 0;
+            else if ((long) size * BATCH < n) small[numSmall++] = v;
+            else large[numLarge++] = ((long) components.componentOf(v) << 32) | v;
+        }
+        Arrays.sort(large, 0, numLarge);
+        int[] sources = new int[numLarge];
+        for (int i = 0; i < numLarge; i++) sources[i] = (int) large[i];
+        averageSeparations(g, sources, result, pool);
+
+        int count = numSmall, parts = Math.max(1, Math.min(count, ParallelTasks.parts(pool)));
+        ParallelTasks.forEach(pool, parts, p -> {
+            BFSResult bfs = new BFSResult(n);
+            for (int i = p; i < count; i += parts) {
+                graphLibrary.bfs(g, small[i], bfs);
+                long total = 0;
+                for (int k = 1; k < bfs.size(); k++) total += bfs.distance(bfs.vertexAt(k));
+                result[small[i]] = (double) total / (bfs.size() - 1);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Average separation of some of the actors, leaving the others' entries alone.
+     *
+     * @param g universe
+     * @param sources ids of the actors to compute
+     * @param result indexed by actor id, filled in for each source
+     * @param pool pool to run the batches in
+     */
+    public static void averageSeparations(IndexedGraph g, int[] sources, double[] result, ForkJoinPool pool) {
+        int batches = (sources.length + BATCH - 1) / BATCH;
+        pool.invoke(new BatchTask(g, sources, result, 0, batches));
+    }
+
+    /**
+     * Splits a range of batches in half until a single batch is left, then sweeps it.
+     */
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IndexedGraph g;
+        private final int[] sources;
+        private final double[] result;
+        private final int from, to; // range of batch numbers
+
+        BatchTask(IndexedGraph g, int[] sources, double[] result, int from, int to) {
+            this.g = g;
+            this.sources = sources;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(g, sources, result, from, mid), new BatchTask(g, sources, result, mid, to));
+            } else if (to > from) {
+                int first = from * BATCH;
+                int[] batch = Arrays.copyOfRange(sources, first, Math.min(first + BATCH, sources.length));
+                long[] totals = new long[batch.length], counts = new long[batch.length];
+                sweep(g, batch, totals, counts);
+                for (int i = 0; i < batch.length; i++) result[batch[i]] = counts[i] == 0 ? 0 : (double) totals[i] / counts[i];
+            }
+        }
+    }
+
+    /**
+     * Find the actors whose average separation can differ between two versions of the universe, so that only they
+     * need to be recomputed. Actor ids must be the same in both, with any new actors numbered after the old ones, and
+     * every added or removed edge must have a touched actor at one end.
+     * Distances from a source s are unchanged if every removed edge (u,v) had d(s,u) = d(s,v), so it was on no
+     * shortest path, and every added edge has |d(s,u) - d(s,v)| <= 1, so it shortens none; both are checked with
+     * distances in the old universe, found by one BFS from each endpoint of a changed edge.
+     *
+     * @param before universe before the change
+     * @param after universe after the change
+     * @param touched ids of the actors whose movies changed
+     * @param maxEndpoints most changed-edge endpoints worth searching from
+     * @return sorted ids of the affected actors, or null if more endpoints than maxEndpoints would need searching
+     */
+    public static int[] affectedSources(IndexedGraph before, IndexedGraph after, Collection<Integer> touched, int maxEndpoints) {
+        int oldN = before.numVertices(), n = after.numVertices();
+        List<int[]> added = new ArrayList<>(), removed = new ArrayList<>();
+        int[] scratch = new int[Math.max(before.maxNeighbors(), after.maxNeighbors())];
+        for (int t : touched) {
+            int[] oldRow = t < oldN ? sortedNeighbors(before, t, scratch) : new int[0];
+            int[] newRow = sortedNeighbors(after, t, scratch);
+            int i = 0, j = 0;
+            while (i < oldRow.length || j < newRow.length) { // merge the sorted rows to find the differences
+                if (j == newRow.length || (i < oldRow.length && oldRow[i] < newRow[j])) removed.add(new int[] {t, oldRow[i++]});
+                else if (i == oldRow.length || newRow[j] < oldRow[i]) added.add(new int[] {t, newRow[j++]});
+                else { i++; j++; }
+            }
+        }
+
+        // distances in the old universe from each endpoint of a changed edge; new actors are unreachable
+        Map<Integer, int[]> distances = new HashMap<>();
+        for (List<int[]> edges : List.of(added, removed)) {
+            for (int[] edge : edges) {
+                for (int end : edge) {
+                    if (end >= oldN || distances.containsKey(end)) continue;
+                    if (distances.size() == maxEndpoints) return null;
+                    BFSResult bfs = graphLibrary.bfs(before, end, new BFSResult(oldN));
+                    int[] dist = new int[oldN];
+                    for (int v = 0; v < oldN; v++) dist[v] = bfs.distance(v);
+                    distances.put(end, dist);
+                }
+            }
+        }
+
+        boolean[] affected = new boolean[n];
+        for (int v = oldN; v < n; v++) affected[v] = true;
+        for (int s = 0; s < oldN; s++) {
+            for (int[] edge : added) {
+                int du = distance(distances, edge[0], s), dv = distance(distances, edge[1], s);
+                if ((du < 0) != (dv < 0) || Math.abs(du - dv) > 1) affected[s] = true;
+            }
+            for (int[] edge : removed) {
+                if (distance(distances, edge[0], s) != distance(distances, edge[1], s)) affected[s] = true;
+            }
+        }
+        int count = 0;
+        for (boolean a : affected) if (a) count++;
+        int[] result = new int[count];
+        count = 0;
+        for (int v = 0; v < n; v++) if (affected[v]) result[count++] = v;
+        return result;
+    }
+
+    /**
+     * @return old-universe distance between an endpoint and a source, or -1 if unreachable
+     */
+    private static int distance(Map<Integer, int[]> distances, int end, int s) {
+        int[] dist = distances.get(end);
+        return dist == null ? -1 : dist[s];
+    }
+
+    /**
+     * @return the distinct neighbors of v in increasing order
+     */
+    private static int[] sortedNeighbors(IndexedGraph g, int v, int[] scratch) {
+        int size = g.neighbors(v, scratch);
+        int[] row = Arrays.copyOf(scratch, size);
+        Arrays.sort(row);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) if (i == 0 || row[i] != row[i - 1]) row[distinct++] = row[i];
+        return Arrays.copyOf(row, distinct);
+    }
+
+    /**
+     * Multi-source BFS from up to 64 sources at once.
+     *
+     * @param g universe
+     * @param sources actor ids, at most 64
+     * @param totals filled with the sum of distances from each source to the actors it reaches
+     * @param counts filled with the number of actors each source reaches, not counting itself
+     */
+    static void sweep(IndexedGraph g, int[] sources, long[] totals, long[] counts) {
+        sweep(g, sources, totals, counts, null, null, null);
+    }
+
+    /**
+     * As above, also crediting each reached actor with its distances from the sources, for sampled estimates.
+     *
+     * @param vertexTotals if not null, each actor's entry is increased by the sum of its distances from the sources that reach it
+     * @param vertexSquares if not null, each actor's entry is increased by the sum of the squares of those distances
+     * @param vertexCounts if not null, each actor's entry is increased by the number of sources that reach it, not counting itself
+     * @return number of levels, the greatest distance from any source to an actor it reaches
+     */
+    static int sweep(IndexedGraph g, int[] sources, long[] totals, long[] counts, long[] vertexTotals, long[] vertexSquares,
+                     int[] vertexCounts) {
+        GameEvents.SeparationSweep event = new GameEvents.SeparationSweep();
+        event.begin();
+        int n = g.numVertices();
+        long reached = 0; // source-actor pairs, for the metrics
+        long[] seen = new long[n];  // bit i set once source i has reached the vertex
+        long[] visit = new long[n]; // bit i set if the vertex is on source i's current frontier
+        long[] next = new long[n];  // frontier being built for the next level
+        for (int i = 0; i < sources.length; i++) {
+            seen[sources[i]] |= 1L << i;
+            visit[sources[i]] |= 1L << i;
+        }
+        int[] neighbors = g instanceof BipartiteGraph ? null : new int[g.maxNeighbors()];
+        long[] movieVisit = g instanceof BipartiteGraph ? new long[g.numMovies()] : null;
+        boolean active = true;
+        int level;
+        for (level = 1; active; level++) {
+            if (g instanceof BipartiteGraph) expandBipartite((BipartiteGraph) g, seen, visit, next, movieVisit);
+            else expand(g, seen, visit, next, neighbors);
+            active = false;
+            for (int w = 0; w < n; w++) {
+                long found = next[w];
+                if (found == 0) continue;
+                active = true;
+                seen[w] |= found;
+                reached += Long.bitCount(found);
+                for (long bits = found; bits != 0; bits &= bits - 1) { // credit each newly reaching source
+                    int i = Long.numberOfTrailingZeros(bits);
+                    totals[i] += level;
+                    counts[i]++;
+                }
+                if (vertexTotals != null) {
+                    vertexTotals[w] += (long) level * Long.bitCount(found);
+                    vertexSquares[w] += (long) level * level * Long.bitCount(found);
+                    vertexCounts[w] += Long.bitCount(found);
+                }
+            }
+            long[] swap = visit;
+            visit = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+        GameMetrics.countSweep(sources.length, reached);
+        event.sources = sources.length;
+        event.levels = level - 2;
+        event.reached = reached;
+        event.commit();
+        return level - 2; // the last level found nothing
+    }
+
+    /**
+     * One level of MS-BFS over actor-actor edges: push each frontier word to the neighbors that have not seen it.
+     */
+    private static void expand(IndexedGraph g, long[] seen, long[] visit, long[] next, int[] neighbors) {
+        for (int v = 0; v < visit.length; v++) {
+            if (visit[v] == 0) continue;
+            int size = g.neighbors(v, neighbors);
+            for (int i = 0; i < size; i++) {
+                int w = neighbors[i];
+                next[w] |= visit[v] & ~seen[w];
+            }
+        }
+    }
+
+    /**
+     * One level of MS-BFS over actor-movie incidence lists: gather each movie's frontier from its cast,
+     * then each actor's next frontier from its movies, in time linear in the number of credits.
+     */
+    private static void expandBipartite(BipartiteGraph g, long[] seen, long[] visit, long[] next, long[] movieVisit) {
+        for (int movie = 0; movie < movieVisit.length; movie++) {
+            long bits = 0;
+            for (int i = g.castStart(movie); i < g.castEnd(movie); i++) bits |= visit[g.castAt(i)];
+            movieVisit[movie] = bits;
+        }
+        for (int w = 0; w < next.length; w++) {
+            long bits = 0;
+            for (int i = g.movieStart(w); i < g.movieEnd(w); i++) bits |= movieVisit[g.movieAt(i)];
+            next[w] = bits & ~seen[w];
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+
+/**
+ * Approximate average separations for universes too big for an exact all-sources pass, in the style of Eppstein and
+ * Wang: BFS from a random sample of k actors, and estimate each actor's average separation as its mean distance from
+ * the sampled actors that reach it. That costs k searches instead of n.
+ *
+ * Each estimate comes with the half-width of an approximate 95% confidence interval, from the normal approximation to
+ * the spread of its sampled distances. (Eppstein and Wang's Hoeffding bound holds without that approximation, but
+ * scales with the diameter and is too loose to separate actors whose averages differ by tenths.) Sampled actors get
+ * their exact values from their own searches, and actors that no sample reaches, which sit in small components with
+ * no sampled actor, are computed exactly with one ordinary BFS each. As in Okamoto, Chen and Li's top-k closeness,
+ * the leading candidates can then be refined: any actor whose interval reaches below the k-th best upper bound is
+ * recomputed exactly.
+ */
+public class ClosenessEstimate {
+    static final double Z = 1.96; // standard normal quantile for a 95% interval
+
+    final double[] separations; // estimated average separation by actor id
+    final double[] errors;      // half-width of the confidence interval of each estimate, 0 where exact
+
+    ClosenessEstimate(double[] separations, double[] errors) {
+        this.separations = separations;
+        this.errors = errors;
+    }
+
+    /**
+     * Estimate every actor's average separation from a random sample of sources.
+     *
+     * @param g universe
+     * @param samples number of sources to search from; n or more gives exact values
+     * @param seed seed for choosing the sources, so runs can be repeated
+     * @param pool pool to run the searches in
+     * @return the estimates and their error bounds
+     */
+    public static ClosenessEstimate sample(IndexedGraph g, int samples, long seed, ForkJoinPool pool) {
+        int n = g.numVertices();
+        if (samples >= n) return new ClosenessEstimate(ClosenessEngine.averageSeparations(g, pool), new double[n]);
+
+        // choose distinct sources by a partial Fisher-Yates shuffle
+        int[] ids = new int[n];
+        for (int v = 0; v < n; v++) ids[v] = v;
+        Random random = new Random(seed);
+        for (int i = 0; i < samples; i++) {
+            int j = i + random.nextInt(n - i);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        int[] sources = Arrays.copyOf(ids, samples);
+
+        // one MS-BFS sweep per batch of 64 sources, crediting each actor with its distances from them
+        double[] separations = new double[n], errors = new double[n];
+        long[] vertexTotals = new long[n], vertexSquares = new long[n];
+        int[] vertexCounts = new int[n];
+        int batches = (samples + ClosenessEngine.BATCH - 1) / ClosenessEngine.BATCH;
+        boolean[] exact = new boolean[n];
+        ParallelTasks.forEach(pool, batches, b -> {
+            int[] batch = Arrays.copyOfRange(sources, b * ClosenessEngine.BATCH, Math.min((b + 1) * ClosenessEngine.BATCH, samples));
+            long[] totals = new long[batch.length], counts = new long[batch.length];
+            long[] batchTotals = new long[n], batchSquares = new long[n];
+            int[] batchCounts = new int[n];
+            ClosenessEngine.sweep(g, batch, totals, counts, batchTotals, batchSquares, batchCounts);
+            synchronized (vertexTotals) {
+                for (int v = 0; v < n; v++) {
+                    vertexTotals[v] += batchTotals[v];
+                    vertexSquares[v] += batchSquares[v];
+                    vertexCounts[v] += batchCounts[v];
+                }
+                for (int i = 0; i < batch.length; i++) { // a source's own search gives its exact value
+                    separations[batch[i]] = counts[i] == 0 ? 0 : (double) totals[i] / counts[i];
+                    exact[batch[i]] = true;
+                }
+            }
+        });
+
+        List<Integer> unreached = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (exact[v]) continue;
+            int m = vertexCounts[v];
+            if (m == 0) {
+                unreached.add(v);
+                continue;
+            }
+            double mean = (double) vertexTotals[v] / m;
+            // one distance says nothing about the spread, so give it an interval as wide as the value itself
+            double variance = m > 1 ? Math.max(0, (vertexSquares[v] - m * mean * mean) / (m - 1)) : mean * mean;
+            separations[v] = mean;
+            errors[v] = Z * Math.sqrt(variance / m);
+        }
+
+        // actors in components without a sample: one BFS each, over components that are small
+        int parts = Math.min(unreached.size(), ParallelTasks.parts(pool));
+        ParallelTasks.forEach(pool, parts, p -> {
+            BFSResult bfs = new BFSResult(n);
+            for (int k = p; k < unreached.size(); k += parts) {
+                int v = unreached.get(k);
+                graphLibrary.bfs(g, v, bfs);
+                long total = 0;
+                for (int i = 1; i < bfs.size(); i++) total += bfs.distance(bfs.vertexAt(i));
+                separations[v] = bfs.size() == 1 ? 0 : (double) total / (bfs.size() - 1); // 0 for isolated actors, as in the exact pass
+            }
+        });
+        return new ClosenessEstimate(separations, errors);
+    }
+
+    /**
+     * Make the best k values exact: recompute every eligible actor whose interval reaches below the k-th smallest
+     * upper bound among eligible actors, since only those can be among the k best of them. Centers are ranked within
+     * a component, so eligible is normally the component of interest; otherwise the actors of tiny components, whose
+     * averages are smallest, would take every place.
+     *
+     * @param g universe the estimates are of
+     * @param k number of best centers wanted
+     * @param eligible which actors are ranked
+     * @param pool pool to run the searches in
+     * @return number of actors recomputed
+     */
+    public int refine(IndexedGraph g, int k, IntPredicate eligible, ForkJoinPool pool) {
+        double[] upper = new double[separations.length];
+        int finite = 0;
+        for (int v = 0; v < separations.length; v++) {
+            if (eligible.test(v) && !Double.isNaN(separations[v])) upper[finite++] = separations[v] + errors[v];
+        }
+        if (finite == 0 || k <= 0) return 0;
+        Arrays.sort(upper, 0, finite);
+        double cutoff = upper[Math.min(k, finite) - 1];
+        int[] candidates = new int[separations.length];
+        int size = 0;
+        for (int v = 0; v < separations.length; v++) {
+            if (eligible.test(v) && errors[v] > 0 && separations[v] - errors[v] <= cutoff) candidates[size++] = v;
+        }
+        candidates = Arrays.copyOf(candidates, size);
+        ClosenessEngine.averageSeparations(g, candidates, separations, pool);
+        for (int v : candidates) errors[v] = 0;
+        return size;
+    }
+}
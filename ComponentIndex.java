@@ -0,0 +1,141 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Connected components of the universe, labeled once so that "are these two actors connected?" is an array lookup.
+ * Built with a concurrent union-find: every link points a root at a smaller root with compare-and-set, so there are
+ * no cycles and no locks, and each component ends up rooted at its smallest actor id. Components are numbered in
+ * order of that smallest id, so the labels are the same for any number of threads.
+ */
+public class ComponentIndex {
+    private final int[] component; // actor id -> component id
+    private final int[] sizes;     // component id -> number of actors
+
+    private ComponentIndex(AtomicIntegerArray parent) {
+        int n = parent.length();
+        component = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) { // roots come before the rest of their components
+            int root = find(parent, v);
+            component[v] = root == v ? count++ : component[root];
+        }
+        sizes = new int[count];
+        for (int v = 0; v < n; v++) sizes[component[v]]++;
+    }
+
+    /**
+     * Label components from the movies' casts: everyone in a cast is connected.
+     *
+     * @param casts table of casts
+     * @param pool pool to join the casts in, or null to join them in this thread
+     * @return the components
+     */
+    public static ComponentIndex fromCasts(CastTable casts, ForkJoinPool pool) {
+        AtomicIntegerArray parent = roots(casts.numActors());
+        int numMovies = casts.numMovies();
+        int parts = Math.max(1, Math.min(numMovies, ParallelTasks.parts(pool)));
+        ParallelTasks.forEach(pool, parts, p -> {
+            for (int movie = (int) ((long) numMovies * p / parts); movie < (long) numMovies * (p + 1) / parts; movie++) {
+                for (int i = casts.castOffsets[movie] + 1; i < casts.castOffsets[movie + 1]; i++) {
+                    union(parent, casts.castActors[casts.castOffsets[movie]], casts.castActors[i]);
+                }
+            }
+        });
+        return new ComponentIndex(parent);
+    }
+
+    /**
+     * Label components from the universe's edges, for when the casts are not at hand.
+     *
+     * @param g universe
+     * @param pool pool to join the edges in, or null to join them in this thread
+     * @return the components
+     */
+    public static ComponentIndex fromGraph(IndexedGraph g, ForkJoinPool pool) {
+        int n = g.numVertices();
+        AtomicIntegerArray parent = roots(n);
+        int parts = Math.max(1, Math.min(n, ParallelTasks.parts(pool)));
+        ParallelTasks.forEach(pool, parts, p -> {
+            int[] neighbors = new int[g.maxNeighbors()];
+            for (int v = (int) ((long) n * p / parts); v < (long) n * (p + 1) / parts; v++) {
+                int size = g.neighbors(v, neighbors);
+                for (int i = 0; i < size; i++) union(parent, v, neighbors[i]);
+            }
+        });
+        return new ComponentIndex(parent);
+    }
+
+    private static AtomicIntegerArray roots(int n) {
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) parent.set(v, v);
+        return parent;
+    }
+
+    /**
+     * Find v's root, halving the path on the way; a failed compare-and-set just means another thread got there first.
+     */
+    private static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) return v;
+            int grandparent = parent.get(p);
+            if (p != grandparent) parent.compareAndSet(v, p, grandparent);
+            v = grandparent;
+        }
+    }
+
+    /**
+     * Join the components of u and v by pointing the larger root at the smaller one.
+     */
+    private static void union(AtomicIntegerArray parent, int u, int v) {
+        while (true) {
+            int ru = find(parent, u), rv = find(parent, v);
+            if (ru == rv) return;
+            if (ru < rv) {
+                int swap = ru;
+                ru = rv;
+                rv = swap;
+            }
+            if (parent.compareAndSet(ru, ru, rv)) return; // fails if ru stopped being a root; try again
+        }
+    }
+
+    /**
+     * @param v actor id
+     * @return id of the actor's component
+     */
+    public int componentOf(int v) {
+        return component[v];
+    }
+
+    /**
+     * @param v actor id
+     * @return number of actors in the actor's component, including itself
+     */
+    public int componentSize(int v) {
+        return sizes[component[v]];
+    }
+
+    /**
+     * @return number of components
+     */
+    public int count() {
+        return sizes.length;
+    }
+
+    /**
+     * @return approximate number of bytes held by the index
+     */
+    public long footprint() {
+        return 4L * (component.length + sizes.length);
+    }
+
+    /**
+     * @param u actor id
+     * @param v actor id
+     * @return whether some path of shared movies joins the two actors
+     */
+    public boolean connected(int u, int v) {
+        return component[u] == component[v];
+    }
+}
@@ -0,0 +1,239 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Read-only graph of the acting universe with each actor's co-stars compressed, for universes whose co-star pairs
+ * do not fit comfortably in a CSRGraph.
+ * The neighbors of actor v are sorted by id and encoded as gaps, in rows[rowStarts[v]] .. rows[rowStarts[v+1]-1]:
+ * the first as the difference from v itself (zigzag-encoded, since it may be negative) and each of the rest as the
+ * difference from the one before it. Each number is a varint: seven bits per byte, low bits first, with the high bit
+ * set on every byte but the last. Once actors are numbered so that co-stars get nearby ids (see VertexOrder), most
+ * gaps fit in one byte instead of four.
+ *
+ * No movies are stored per edge: like BipartiteGraph, the movies two actors share are found by intersecting their
+ * sorted movie lists, which hold one entry per credit instead of one per co-star pair.
+ */
+public class CompressedGraph extends AbstractIndexedGraph {
+    private final NameDictionary names;         // actor id <-> actor name
+    private final NameDictionary movieNames;    // movie id -> movie name
+    private final byte[] rows;                  // concatenated encoded neighbor rows
+    private final int[] rowStarts;              // actor id -> start of its row in rows, length n+1
+    private final int[] degrees;                // actor id -> number of neighbors in its row
+    private final int[] actorOffsets;           // actor id -> start of its movies in actorMovies, length n+1
+    private final int[] actorMovies;            // concatenated sorted movie lists
+    private final int maxDegree, numEdges;
+
+    private CompressedGraph(CastTable casts, byte[] rows, int[] rowStarts, int[] degrees, int[] actorOffsets, int[] actorMovies) {
+        names = casts.actorNames;
+        movieNames = casts.movieNames;
+        this.rows = rows;
+        this.rowStarts = rowStarts;
+        this.degrees = degrees;
+        this.actorOffsets = actorOffsets;
+        this.actorMovies = actorMovies;
+        int max = 0, edges = 0;
+        for (int degree : degrees) {
+            max = Math.max(max, degree);
+            edges = Math.addExact(edges, degree);
+        }
+        maxDegree = max;
+        numEdges = edges;
+    }
+
+    /**
+     * Build the universe from a table of casts with dense ids, in parallel like CSRGraph.fromCasts: each worker
+     * encodes the rows of a block of actors, and the blocks are then copied into place.
+     *
+     * @param casts actor and movie names, and each movie's cast
+     * @param pool pool to build in, or null to build in this thread
+     * @return the universe with compressed rows
+     */
+    public static CompressedGraph fromCasts(CastTable casts, ForkJoinPool pool) {
+        int n = casts.numActors();
+        int[] movieOffsets = new int[n + 1];
+        int[] moviesOf = casts.moviesByActor(movieOffsets);
+
+        int numBlocks = Math.max(1, Math.min(n, ParallelTasks.parts(pool)));
+        RowBlock[] blocks = new RowBlock[numBlocks];
+        ParallelTasks.forEach(pool, numBlocks, b ->
+                blocks[b] = new RowBlock(casts, movieOffsets, moviesOf, (int) ((long) n * b / numBlocks), (int) ((long) n * (b + 1) / numBlocks)));
+
+        int[] byteStarts = new int[numBlocks + 1];
+        for (int b = 0; b < numBlocks; b++) byteStarts[b + 1] = Math.addExact(byteStarts[b], blocks[b].size);
+        byte[] rows = new byte[byteStarts[numBlocks]];
+        int[] rowStarts = new int[n + 1];
+        int[] degrees = new int[n];
+        ParallelTasks.forEach(pool, numBlocks, b -> {
+            RowBlock block = blocks[b];
+            for (int v = block.from; v < block.to; v++) {
+                rowStarts[v] = byteStarts[b] + block.rowStarts[v - block.from];
+                degrees[v] = block.degrees[v - block.from];
+            }
+            System.arraycopy(block.bytes, 0, rows, byteStarts[b], block.size);
+        });
+        rowStarts[n] = rows.length;
+        return new CompressedGraph(casts, rows, rowStarts, degrees, movieOffsets, moviesOf);
+    }
+
+    /**
+     * The encoded rows of a block of consecutive actors, with positions relative to the start of the block.
+     */
+    private static class RowBlock {
+        final int from, to;         // actor ids in the block
+        final int[] rowStarts, degrees;
+        byte[] bytes = new byte[64];
+        int size;
+
+        RowBlock(CastTable casts, int[] movieOffsets, int[] moviesOf, int from, int to) {
+            this.from = from;
+            this.to = to;
+            rowStarts = new int[to - from];
+            degrees = new int[to - from];
+            int[] coStars = new int[16];
+            for (int v = from; v < to; v++) {
+                int count = 0;
+                for (int i = movieOffsets[v]; i < movieOffsets[v + 1]; i++) {
+                    int movie = moviesOf[i];
+                    int length = casts.castOffsets[movie + 1] - casts.castOffsets[movie];
+                    if (count + length > coStars.length) coStars = Arrays.copyOf(coStars, Math.max(coStars.length * 2, count + length));
+                    System.arraycopy(casts.castActors, casts.castOffsets[movie], coStars, count, length);
+                    count += length;
+                }
+                count = CastTable.sortUnique(coStars, 0, count);
+                rowStarts[v - from] = size;
+                int previous = v;
+                for (int i = 0; i < count; i++) {
+                    int other = coStars[i];
+                    if (other == v) continue; // exclude self-loops
+                    int gap = other - previous;
+                    write(degrees[v - from] == 0 ? (gap << 1) ^ (gap >> 31) : gap); // the first gap is from v
+                    previous = other;
+                    degrees[v - from]++;
+                }
+            }
+        }
+
+        private void write(int value) {
+            if (size + 5 > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 5));
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) (value | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+    }
+
+    // ---- IndexedGraph ----
+
+    @Override
+    public int indexOf(String name) {
+        return names.indexOf(name);
+    }
+
+    @Override
+    public String nameOf(int v) {
+        return names.name(v);
+    }
+
+    @Override
+    public NameDictionary actorNames() {
+        return names;
+    }
+
+    @Override
+    public int degree(int v) {
+        return degrees[v];
+    }
+
+    @Override
+    public int maxNeighbors() {
+        return maxDegree;
+    }
+
+    /**
+     * Decodes the actor's row, so co-stars come out sorted by id and each exactly once.
+     */
+    @Override
+    public int neighbors(int v, int[] dest) {
+        byte[] rows = this.rows;
+        int degree = degrees[v];
+        if (degree == 0) return 0;
+        int position = rowStarts[v];
+        int value = rows[position++];
+        if (value < 0) { // most gaps take one byte, so longer ones are decoded out of line
+            value &= 0x7F;
+            for (int shift = 7; ; shift += 7) {
+                byte b = rows[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+        }
+        int neighbor = v + ((value >>> 1) ^ -(value & 1));
+        dest[0] = neighbor;
+        for (int i = 1; i < degree; i++) {
+            int gap = rows[position++];
+            if (gap < 0) {
+                gap &= 0x7F;
+                for (int shift = 7; ; shift += 7) {
+                    byte b = rows[position++];
+                    gap |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+            }
+            neighbor += gap;
+            dest[i] = neighbor;
+        }
+        return degree;
+    }
+
+    @Override
+    protected int[] distinctNeighbors(int v) {
+        int[] neighbors = new int[degrees[v]];
+        neighbors(v, neighbors);
+        return neighbors;
+    }
+
+    @Override
+    public int[] sharedMovies(int u, int v) {
+        if (u == v) return new int[0];
+        int[] shared = new int[Math.min(actorOffsets[u + 1] - actorOffsets[u], actorOffsets[v + 1] - actorOffsets[v])];
+        int size = 0;
+        int i = actorOffsets[u], j = actorOffsets[v];
+        while (i < actorOffsets[u + 1] && j < actorOffsets[v + 1]) { // merge the two sorted movie lists
+            if (actorMovies[i] < actorMovies[j]) i++;
+            else if (actorMovies[i] > actorMovies[j]) j++;
+            else {
+                shared[size++] = actorMovies[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(shared, size);
+    }
+
+    @Override
+    public int numMovies() {
+        return movieNames.size();
+    }
+
+    @Override
+    public String movieName(int movie) {
+        return movieNames.name(movie);
+    }
+
+    @Override
+    public long footprint() {
+        return names.footprint() + movieNames.footprint() + rows.length
+                + 4L * (rowStarts.length + degrees.length + actorOffsets.length + actorMovies.length);
+    }
+
+    @Override
+    public int numVertices() {
+        return names.size();
+    }
+
+    @Override
+    public int numEdges() {
+        return numEdges;
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * View of the universe that only counts some of its movies, such as those of a range of years: two actors are
+ * co-stars in the view if they share at least one counted movie. Nothing of the universe is copied; the view holds
+ * one bit per movie, and checks an edge's movies against those bits as searches walk it, so a new view is ready in
+ * the time it takes to test every movie once. BFS, shortest paths and separations all run on it like on any other
+ * IndexedGraph, and actors keep their ids and names, so results can be compared with the whole universe's.
+ *
+ * CSR layouts check the movie runs stored with each edge, and bipartite ones skip uncounted movies' casts. Other
+ * layouts look up the movies of each edge, which is slower.
+ */
+public class FilteredGraph extends AbstractIndexedGraph {
+    private final IndexedGraph g;
+    private final long[] movies;    // bit m set if movie m counts
+    private final int[] degrees;    // distinct co-stars in the view plus one, 0 until first asked for
+    private final ThreadLocal<int[]> scratch; // each thread's buffer for listing co-stars to count them
+    private int numEdges = -1;      // -1 until first asked for
+
+    /**
+     * @param g universe to view
+     * @param counts which movie ids count
+     */
+    public FilteredGraph(IndexedGraph g, IntPredicate counts) {
+        this.g = g;
+        movies = new long[(g.numMovies() + 63) >>> 6];
+        for (int movie = 0; movie < g.numMovies(); movie++) {
+            if (counts.test(movie)) movies[movie >>> 6] |= 1L << movie;
+        }
+        degrees = new int[g.numVertices()];
+        scratch = ThreadLocal.withInitial(() -> new int[g.maxNeighbors()]);
+    }
+
+    /**
+     * @return the universe this is a view of
+     */
+    public IndexedGraph base() {
+        return g;
+    }
+
+    /**
+     * @param movie movie id
+     * @return whether the movie counts in this view
+     */
+    public boolean counts(int movie) {
+        return (movies[movie >>> 6] & (1L << movie)) != 0;
+    }
+
+    /**
+     * @return number of movies that count
+     */
+    public int numCounted() {
+        int count = 0;
+        for (long word : movies) count += Long.bitCount(word);
+        return count;
+    }
+
+    // ---- IndexedGraph ----
+
+    @Override
+    public int indexOf(String name) {
+        return g.indexOf(name);
+    }
+
+    @Override
+    public String nameOf(int v) {
+        return g.nameOf(v);
+    }
+
+    @Override
+    public NameDictionary actorNames() {
+        return g.actorNames();
+    }
+
+    /**
+     * Counted the first time it is asked for, since it takes a pass over the actor's co-stars. Safe to ask from
+     * several threads at once: they may both count, but get the same answer.
+     */
+    @Override
+    public int degree(int v) {
+        if (degrees[v] == 0) degrees[v] = distinct(v, scratch.get()) + 1;
+        return degrees[v] - 1;
+    }
+
+    /**
+     * Counted the first time it is asked for, from every actor's degree, so it takes a pass over the whole view.
+     */
+    @Override
+    public int numEdges() {
+        if (numEdges < 0) numEdges = super.numEdges();
+        return numEdges;
+    }
+
+    @Override
+    public int maxNeighbors() {
+        return g.maxNeighbors();
+    }
+
+    /**
+     * Co-stars are listed once each, in increasing id order, in CSR and compressed layouts, and may be listed more than
+     * once in others.
+     */
+    @Override
+    public int neighbors(int v, int[] dest) {
+        int size = 0;
+        if (g instanceof CSRGraph csr) {
+            for (int edge = csr.neighborStart(v); edge < csr.neighborEnd(v); edge++) {
+                for (int i = csr.edgeMovieStart(edge); i < csr.edgeMovieEnd(edge); i++) {
+                    if (counts(csr.edgeMovieAt(i))) {
+                        dest[size++] = csr.neighborAt(edge);
+                        break;
+                    }
+                }
+            }
+        } else if (g instanceof MappedCSRGraph mapped) {
+            for (int edge = mapped.neighborStart(v); edge < mapped.neighborEnd(v); edge++) {
+                for (int i = mapped.edgeMovieStart(edge); i < mapped.edgeMovieEnd(edge); i++) {
+                    if (counts(mapped.edgeMovieAt(i))) {
+                        dest[size++] = mapped.neighborAt(edge);
+                        break;
+                    }
+                }
+            }
+        } else if (g instanceof BipartiteGraph bipartite) {
+            for (int i = bipartite.movieStart(v); i < bipartite.movieEnd(v); i++) {
+                int movie = bipartite.movieAt(i);
+                if (!counts(movie)) continue;
+                for (int j = bipartite.castStart(movie); j < bipartite.castEnd(movie); j++) {
+                    if (bipartite.castAt(j) != v) dest[size++] = bipartite.castAt(j);
+                }
+            }
+        } else {
+            int count = g.neighbors(v, dest);
+            for (int i = 0; i < count; i++) {
+                for (int movie : g.sharedMovies(v, dest[i])) {
+                    if (counts(movie)) {
+                        dest[size++] = dest[i];
+                        break;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    @Override
+    protected int[] distinctNeighbors(int v) {
+        int[] buffer = scratch.get();
+        return Arrays.copyOf(buffer, distinct(v, buffer));
+    }
+
+    /**
+     * List the actor's distinct co-stars in the view, in increasing id order, at the start of a buffer.
+     *
+     * @param v actor id
+     * @param buffer buffer with room for maxNeighbors() ids
+     * @return number of distinct co-stars
+     */
+    private int distinct(int v, int[] buffer) {
+        int size = neighbors(v, buffer);
+        // these layouts list each co-star once, in increasing id order, and the view keeps that order
+        if (g instanceof CSRGraph || g instanceof MappedCSRGraph || g instanceof CompressedGraph) return size;
+        Arrays.sort(buffer, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || buffer[i] != buffer[distinct - 1]) buffer[distinct++] = buffer[i];
+        }
+        return distinct;
+    }
+
+    @Override
+    public int[] sharedMovies(int u, int v) {
+        int[] shared = g.sharedMovies(u, v);
+        int size = 0;
+        for (int movie : shared) {
+            if (counts(movie)) shared[size++] = movie;
+        }
+        return Arrays.copyOf(shared, size);
+    }
+
+    @Override
+    public int numMovies() {
+        return g.numMovies();
+    }
+
+    @Override
+    public String movieName(int movie) {
+        return g.movieName(movie);
+    }
+
+    /**
+     * Counts only the view's own tables, not the universe's.
+     */
+    @Override
+    public long footprint() {
+        return 8L * movies.length + 4L * degrees.length;
+    }
+
+    @Override
+    public int numVertices() {
+        return g.numVertices();
+    }
+}
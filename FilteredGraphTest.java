@@ -0,0 +1,98 @@
+import java.util.*;
+
+/**
+ * Test class for FilteredGraph.java and MovieYears.java
+ * Views the bundled test universe, as CSR rows, compressed rows and bipartite incidence lists, counting each of the
+ * 64 sets of its 6 movies, and checks every view against a universe built from only the counted movies: the same
+ * co-stars, shared movies and degrees, and the same distances by BFS and ParallelBFS from every actor.
+ * Expected output commented below
+ */
+public class FilteredGraphTest {
+    public static void main(String[] args) {
+        Map<Integer, String> actors = BaconReader.readIDs("bacon/actorsTest.txt"), movies = BaconReader.readIDs("bacon/moviesTest.txt");
+        Map<Integer, ArrayList<Integer>> credits = BaconReader.readMovieActors("bacon/movie-actorsTest.txt");
+        CastTable casts = CastTable.fromMaps(actors, movies, credits);
+        IndexedGraph[] layouts = {CSRGraph.fromCasts(casts), CompressedGraph.fromCasts(casts, null), new BipartiteGraph(casts)};
+
+        System.out.println("view check");
+        FilteredGraph testView = new FilteredGraph(layouts[0], movie -> !layouts[0].movieName(movie).equals("A movie"));
+        System.out.println(testView.numCounted() + " of " + testView.numMovies() + " movies counted");
+        System.out.println(testView);
+        System.out.println(testView.numVertices() + " vertices, " + testView.numEdges() + " directed edges");
+        System.out.println(graphLibrary.shortestPath(testView, "Kevin Bacon", "Dartmouth (Earl thereof)"));
+        System.out.println(graphLibrary.shortestPath(testView, "Kevin Bacon", "Bob"));
+
+        System.out.println("movie set check");
+        int numMovies = casts.numMovies();
+        int[] mismatches = new int[layouts.length];
+        for (int set = 0; set < 1 << numMovies; set++) {
+            int counted = set;
+            // the universe of only the counted movies, with the same actors
+            Map<Integer, ArrayList<Integer>> countedCredits = new HashMap<>();
+            for (int movie = 0; movie < numMovies; movie++) {
+                if ((counted >> movie & 1) != 0) countedCredits.put(casts.movieFileIDs[movie], credits.get(casts.movieFileIDs[movie]));
+            }
+            CSRGraph expected = CSRGraph.fromCasts(actors, movies, countedCredits);
+            for (int l = 0; l < layouts.length; l++) {
+                FilteredGraph view = new FilteredGraph(layouts[l], movie -> (counted >> movie & 1) != 0);
+                mismatches[l] += compare(expected, view);
+            }
+        }
+        for (int l = 0; l < layouts.length; l++) {
+            System.out.println(layouts[l].getClass().getSimpleName() + ": " + (1 << numMovies) + " movie sets, " + mismatches[l] + " mismatches");
+        }
+
+        System.out.println("movie years check");
+        for (String name : new String[] {"Toy Story (1995)", "Battle Royale (Batoru Rowaiaru) 2000", "Half Moon Street",
+                "Alien (1979", "Heat 1995)", "Number (abcd)", "1999"}) {
+            System.out.println(name + ": " + MovieYears.parse(name));
+        }
+    }
+
+    /**
+     * @return number of actors whose co-stars, shared movies, degree or distances differ between the view and the
+     *         universe it should equal
+     */
+    private static int compare(CSRGraph expected, FilteredGraph view) {
+        int mismatches = 0;
+        if (view.numEdges() != expected.numEdges()) mismatches++;
+        BFSResult want = new BFSResult(expected.numVertices()), got = new BFSResult(view.numVertices());
+        for (int v = 0; v < view.numVertices(); v++) {
+            String name = view.nameOf(v);
+            if (view.degree(v) != expected.degree(expected.indexOf(name))) mismatches++;
+            for (int u = 0; u < view.numVertices(); u++) {
+                if (!Objects.equals(view.getLabel(name, view.nameOf(u)), expected.getLabel(name, view.nameOf(u)))) mismatches++;
+            }
+            graphLibrary.bfs(expected, expected.indexOf(name), want);
+            for (BFSResult result : new BFSResult[] {graphLibrary.bfs(view, v, got), ParallelBFS.bfs(view, v, got, null)}) {
+                if (result.size() != want.size()) mismatches++;
+                for (int u = 0; u < view.numVertices(); u++) {
+                    if (result.distance(u) != want.distance(expected.indexOf(view.nameOf(u)))) mismatches++;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /* OUTPUT
+    view check
+    5 of 6 movies counted
+    Vertices: [Kevin Bacon, Alice, Bob, Charlie, Dartmouth (Earl thereof), Nobody, Nobody's Friend]
+    Out edges: {Kevin Bacon={Alice=[E movie]}, Alice={Kevin Bacon=[E movie], Charlie=[D movie]}, Bob={Charlie=[C movie]}, Charlie={Alice=[D movie], Bob=[C movie], Dartmouth (Earl thereof)=[B movie]}, Dartmouth (Earl thereof)={Charlie=[B movie]}, Nobody={Nobody's Friend=[F movie]}, Nobody's Friend={Nobody=[F movie]}}
+    7 vertices, 10 directed edges
+    [Kevin Bacon -(E movie)- Alice -(D movie)- Charlie -(B movie)- Dartmouth (Earl thereof)]
+    [Kevin Bacon -(E movie)- Alice -(D movie)- Charlie -(C movie)- Bob]
+    movie set check
+    CSRGraph: 64 movie sets, 0 mismatches
+    CompressedGraph: 64 movie sets, 0 mismatches
+    BipartiteGraph: 64 movie sets, 0 mismatches
+    movie years check
+    Toy Story (1995): 1995
+    Battle Royale (Batoru Rowaiaru) 2000: 2000
+    Half Moon Street: 0
+    Alien (1979: 0
+    Heat 1995): 0
+    Number (abcd): 0
+    1999: 0
+     */
+}
@@ -0,0 +1,60 @@
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder events of the game, so a recording (java -XX:StartFlightRecording ...) shows where loading
+ * and commands spend their time next to the JVM's own events. Events cost next to nothing while no recording is on.
+ */
+public class GameEvents {
+    /**
+     * One phase of loading the universe: reading, building, labeling components, the separation pass, and so on.
+     */
+    @Name("bacon.LoadPhase")
+    @Label("Load Phase")
+    @Category("Bacon Game")
+    static class LoadPhase extends Event {
+        @Label("Phase")
+        String phase;
+    }
+
+    /**
+     * One menu command, from after its input is read to when its output is printed.
+     */
+    @Name("bacon.Command")
+    @Label("Command")
+    @Category("Bacon Game")
+    static class Command extends Event {
+        @Label("Command")
+        String command;
+    }
+
+    /**
+     * One single-source BFS with the allocation-free kernel.
+     */
+    @Name("bacon.BFS")
+    @Label("BFS")
+    @Category("Bacon Game")
+    static class BFS extends Event {
+        @Label("Source")
+        int source;
+        @Label("Actors Reached")
+        int reached;
+        @Label("Edges Scanned")
+        long edges;
+    }
+
+    /**
+     * One multi-source BFS sweep of the separation pass.
+     */
+    @Name("bacon.SeparationSweep")
+    @Label("Separation Sweep")
+    @Category("Bacon Game")
+    static class SeparationSweep extends Event {
+        @Label("Sources")
+        int sources;
+        @Label("Levels")
+        int levels;
+        @Label("Actors Reached")
+        @Description("Actors reached, summed over the sources")
+        long reached;
+    }
+}
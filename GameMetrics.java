@@ -0,0 +1,258 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timings of a running game, so it is possible to see where loading and commands spend their time
+ * without attaching a profiler: how long each load phase took, a latency histogram for each menu command, how many
+ * searches were run and how much of the universe they visited, and how much memory each structure holds.
+ * Each timing is also a GameEvents event, for Java Flight Recorder.
+ *
+ * The search counters are static, since the searches in graphLibrary and ClosenessEngine are; they count every
+ * search in this JVM. Counting adds one update per search, not per actor visited.
+ */
+public class GameMetrics {
+    // single-source BFS with the allocation-free kernel
+    static final LongAdder bfsRuns = new LongAdder(), bfsVertices = new LongAdder(), bfsEdges = new LongAdder();
+    // bidirectional shortest path searches
+    static final LongAdder pathRuns = new LongAdder(), pathVertices = new LongAdder();
+    // multi-source sweeps of the separation pass
+    static final LongAdder sweepRuns = new LongAdder(), sweepSources = new LongAdder(), sweepReached = new LongAdder();
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();  // load phase -> nanoseconds, in order run
+    private final Map<String, Latency> commands = new TreeMap<>();   // command -> latencies
+
+    /**
+     * Count one BFS.
+     *
+     * @param vertices actors reached, including the source
+     * @param edges edges scanned
+     */
+    static void countBFS(int vertices, long edges) {
+        bfsRuns.increment();
+        bfsVertices.add(vertices);
+        bfsEdges.add(edges);
+    }
+
+    /**
+     * Count one bidirectional search.
+     *
+     * @param vertices actors reached by the two searches together
+     */
+    static void countPath(int vertices) {
+        pathRuns.increment();
+        pathVertices.add(vertices);
+    }
+
+    /**
+     * Count one multi-source sweep.
+     *
+     * @param sources number of sources swept at once
+     * @param reached actors reached, summed over the sources
+     */
+    static void countSweep(int sources, long reached) {
+        sweepRuns.increment();
+        sweepSources.add(sources);
+        sweepReached.add(reached);
+    }
+
+    /**
+     * A timing in progress, ended once the work it times is done.
+     */
+    class Span {
+        private final String name;
+        private final boolean phase;
+        private final jdk.jfr.Event event;
+        private final long start = System.nanoTime();
+
+        private Span(String name, boolean phase, jdk.jfr.Event event) {
+            this.name = name;
+            this.phase = phase;
+            this.event = event;
+            event.begin();
+        }
+
+        /**
+         * Record the time since the span began.
+         */
+        public void end() {
+            long nanos = System.nanoTime() - start;
+            event.commit();
+            synchronized (GameMetrics.this) {
+                if (phase) phases.merge(name, nanos, Long::sum);
+                else commands.computeIfAbsent(name, c -> new Latency()).record(nanos);
+            }
+        }
+    }
+
+    /**
+     * Start timing a load phase. A phase that runs more than once, such as the separation pass after updates, adds up.
+     *
+     * @param name name of the phase
+     * @return the timing, to end when the phase is done
+     */
+    public Span phase(String name) {
+        GameEvents.LoadPhase event = new GameEvents.LoadPhase();
+        event.phase = name;
+        return new Span(name, true, event);
+    }
+
+    /**
+     * Start timing a menu command.
+     *
+     * @param name the command's letter
+     * @return the timing, to end when the command is done
+     */
+    public Span command(String name) {
+        GameEvents.Command event = new GameEvents.Command();
+        event.command = name;
+        return new Span(name, false, event);
+    }
+
+    /**
+     * Latencies of one command in power-of-two buckets of nanoseconds, so percentiles are exact to within a factor of two.
+     */
+    static class Latency {
+        final long[] buckets = new long[64]; // bucket b counts latencies in [2^b, 2^(b+1)) ns
+        long count, total, max;
+
+        void record(long nanos) {
+            buckets[63 - Long.numberOfLeadingZeros(Math.max(1, nanos))]++;
+            count++;
+            total += nanos;
+            max = Math.max(max, nanos);
+        }
+
+        /**
+         * @param other latencies to count in this histogram as well
+         */
+        void add(Latency other) {
+            for (int b = 0; b < buckets.length; b++) buckets[b] += other.buckets[b];
+            count += other.count;
+            total += other.total;
+            max = Math.max(max, other.max);
+        }
+
+        /**
+         * @param fraction between 0 and 1
+         * @return upper end of the bucket holding that fraction of the latencies, at most the largest latency
+         */
+        long percentile(double fraction) {
+            long rank = (long) Math.ceil(fraction * count), seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank && seen > 0) return b >= 62 ? max : Math.min(max, (1L << (b + 1)) - 1);
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Rough heap size of an AdjacencyMapGraph holding the same universe, for comparison with the layouts used here:
+     * two HashMaps of HashMaps, an entry in each for every edge direction, one Set of movie names per pair of actors
+     * shared by both directions, and a String per actor. Assumes a 64-bit JVM with compressed pointers and counts one
+     * movie per pair, so the real graph is somewhat larger.
+     *
+     * @param g universe
+     * @return estimated bytes
+     */
+    static long adjacencyMapEstimate(IndexedGraph g) {
+        long n = g.numVertices(), directed = g.numEdges();
+        long names = 0;
+        for (int v = 0; v < n; v++) names += 40 + g.nameOf(v).length();
+        long vertexMaps = 2 * n * (40 + 48 + 80);  // outer map entry, inner HashMap, its smallest table
+        long edgeEntries = 2 * directed * 40;      // entry in the out map of one end and the in map of the other
+        long labels = directed / 2 * (64 + 80 + 40); // HashSet and its HashMap, smallest table, one movie entry
+        return names + vertexMaps + edgeEntries + labels;
+    }
+
+    /**
+     * @param footprints estimated bytes of each structure, by name
+     * @return a report of every metric, as the m command prints it
+     */
+    public synchronized String report(Map<String, Long> footprints) {
+        StringBuilder out = new StringBuilder("Load phases:\n");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            out.append(String.format("  %-20s %10.1f ms%n", phase.getKey(), phase.getValue() / 1e6));
+        }
+        out.append("Commands (microseconds):\n");
+        out.append(String.format("  %-8s %8s %10s %10s %10s %10s %10s%n", "command", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, Latency> command : commands.entrySet()) {
+            Latency latency = command.getValue();
+            out.append(String.format("  %-8s %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n", command.getKey(), latency.count,
+                    latency.total / 1e3 / latency.count, latency.percentile(0.5) / 1e3, latency.percentile(0.9) / 1e3,
+                    latency.percentile(0.99) / 1e3, latency.max / 1e3));
+        }
+        out.append("Searches:\n");
+        out.append(String.format("  BFS:           %d runs, %d actors reached, %d edges scanned%n",
+                bfsRuns.sum(), bfsVertices.sum(), bfsEdges.sum()));
+        out.append(String.format("  shortest path: %d runs, %d actors reached%n", pathRuns.sum(), pathVertices.sum()));
+        out.append(String.format("  sweeps:        %d runs, %d sources, %d actors reached%n",
+                sweepRuns.sum(), sweepSources.sum(), sweepReached.sum()));
+        out.append("Memory (estimated):\n");
+        for (Map.Entry<String, Long> footprint : footprints.entrySet()) {
+            out.append(String.format("  %-28s %10.1f MB%n", footprint.getKey(), footprint.getValue() / (double) (1 << 20)));
+        }
+        Runtime runtime = Runtime.getRuntime();
+        out.append(String.format("  %-28s %10.1f of %.1f MB", "heap in use",
+                (runtime.totalMemory() - runtime.freeMemory()) / (double) (1 << 20), runtime.maxMemory() / (double) (1 << 20)));
+        return out.toString();
+    }
+
+    /**
+     * @param footprints estimated bytes of each structure, by name
+     * @return every metric as a JSON object, with times in nanoseconds and sizes in bytes
+     */
+    public synchronized String toJson(Map<String, Long> footprints) {
+        StringBuilder out = new StringBuilder("{\n  \"phases\": {");
+        String separator = "";
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            out.append(separator).append("\n    ").append(quote(phase.getKey())).append(": ").append(phase.getValue());
+            separator = ",";
+        }
+        out.append("\n  },\n  \"commands\": {");
+        separator = "";
+        for (Map.Entry<String, Latency> command : commands.entrySet()) {
+            Latency latency = command.getValue();
+            out.append(separator).append("\n    ").append(quote(command.getKey())).append(": {")
+                    .append("\"count\": ").append(latency.count)
+                    .append(", \"total\": ").append(latency.total)
+                    .append(", \"p50\": ").append(latency.percentile(0.5))
+                    .append(", \"p90\": ").append(latency.percentile(0.9))
+                    .append(", \"p99\": ").append(latency.percentile(0.99))
+                    .append(", \"max\": ").append(latency.max).append("}");
+            separator = ",";
+        }
+        out.append("\n  },\n  \"searches\": {")
+                .append("\n    \"bfs\": {\"runs\": ").append(bfsRuns.sum()).append(", \"vertices\": ").append(bfsVertices.sum())
+                .append(", \"edges\": ").append(bfsEdges.sum()).append("},")
+                .append("\n    \"shortestPath\": {\"runs\": ").append(pathRuns.sum()).append(", \"vertices\": ")
+                .append(pathVertices.sum()).append("},")
+                .append("\n    \"sweeps\": {\"runs\": ").append(sweepRuns.sum()).append(", \"sources\": ")
+                .append(sweepSources.sum()).append(", \"reached\": ").append(sweepReached.sum()).append("}")
+                .append("\n  },\n  \"memory\": {");
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Long> memory = new LinkedHashMap<>(footprints);
+        memory.put("heap in use", runtime.totalMemory() - runtime.freeMemory());
+        memory.put("heap max", runtime.maxMemory());
+        separator = "";
+        for (Map.Entry<String, Long> footprint : memory.entrySet()) {
+            out.append(separator).append("\n    ").append(quote(footprint.getKey())).append(": ").append(footprint.getValue());
+            separator = ",";
+        }
+        return out.append("\n  }\n}\n").toString();
+    }
+
+    /**
+     * @param s any string
+     * @return s as a JSON string literal
+     */
+    static String quote(String s) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if (c < ' ') quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
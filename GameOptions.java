@@ -0,0 +1,68 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Settings for loading and running the Bacon Game, read from the command line.
+ */
+public class GameOptions {
+    boolean bipartite = false;  // store actor-movie incidence lists instead of actor-actor edges
+    boolean compressed = false; // store actor-actor edges as delta and varint encoded rows
+    String order = "input";     // order to number actors in before building the universe, see VertexOrder
+    boolean snapshot = true;    // load from (and save) a memory-mapped binary snapshot of the universe
+    int threads = 0;            // worker threads for loading and the separation pass, 0 for one per core
+    double recomputeThreshold = 0.25; // fraction of actors affected by an update above which all separations are recomputed
+    long bfsCacheBytes = 64L << 20; // memory budget for BFS results of recent centers
+    int samples = 0;            // sources to estimate average separations from, 0 to compute them exactly
+    int refine = 0;             // number of best centers to make exact after estimating
+    long seed = 10;             // seed for choosing sampled sources
+    String metricsFile = null;  // file to write metrics to as JSON, or null
+    int port = -1;              // port to serve queries over HTTP on instead of playing at the console, or -1
+
+    /**
+     * Read options from command line arguments, ignoring any that are not recognized.
+     *     --bipartite: store the universe as actor-movie incidence lists
+     *     --compressed: store the universe's co-star rows compressed (see CompressedGraph)
+     *     --order=ORDER: number actors in the order input, degree or bfs before building the universe
+     *     --no-snapshot: always parse the text files, and do not write a snapshot
+     *     --threads=N: use N worker threads instead of one per core
+     *     --recompute-threshold=F: recompute every separation after an update that affects more than F of the actors
+     *     --bfs-cache-mb=N: keep up to N megabytes of BFS results for recent centers
+     *     --approximate=K: estimate average separations from K sampled actors instead of all of them, unless an
+     *         up-to-date snapshot already holds the exact values
+     *     --refine=K: after estimating, recompute exactly any actor that could be among the K best centers
+     *     --seed=S: seed for choosing the sampled actors
+     *     --metrics-json=FILE: write the metrics as JSON to FILE on every m command and on quitting
+     *     --serve=PORT: answer queries as JSON over HTTP on PORT (0 for any free port) instead of playing at the console
+     *
+     * @param args command line arguments
+     * @return the options, with defaults for anything not given
+     */
+    public static GameOptions parse(String[] args) {
+        GameOptions options = new GameOptions();
+        List<String> flags = Arrays.asList(args);
+        options.bipartite = flags.contains("--bipartite");
+        options.compressed = flags.contains("--compressed");
+        options.snapshot = !flags.contains("--no-snapshot");
+        for (String flag : flags) {
+            if (flag.startsWith("--order=")) options.order = flag.substring("--order=".length());
+            if (flag.startsWith("--threads=")) options.threads = Integer.parseInt(flag.substring("--threads=".length()));
+            if (flag.startsWith("--recompute-threshold=")) {
+                options.recomputeThreshold = Double.parseDouble(flag.substring("--recompute-threshold=".length()));
+            }
+            if (flag.startsWith("--bfs-cache-mb=")) options.bfsCacheBytes = Long.parseLong(flag.substring("--bfs-cache-mb=".length())) << 20;
+            if (flag.startsWith("--approximate=")) options.samples = Integer.parseInt(flag.substring("--approximate=".length()));
+            if (flag.startsWith("--refine=")) options.refine = Integer.parseInt(flag.substring("--refine=".length()));
+            if (flag.startsWith("--seed=")) options.seed = Long.parseLong(flag.substring("--seed=".length()));
+            if (flag.startsWith("--metrics-json=")) options.metricsFile = flag.substring("--metrics-json=".length());
+            if (flag.startsWith("--serve=")) options.port = Integer.parseInt(flag.substring("--serve=".length()));
+        }
+        return options;
+    }
+
+    /**
+     * @return pool with the requested number of threads, or the common pool
+     */
+    public ForkJoinPool pool() {
+        return threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.Set;
+
+/**
+ * A graph of the acting universe whose actors are numbered with dense int ids 0..n-1.
+ * Vertices of the Graph interface are actor names and edge labels are the sets of movie names two actors share;
+ * the primitive methods below let hot loops skip the names and sets entirely.
+ */
+public interface IndexedGraph extends Graph<String, Set<String>> {
+    /**
+     * @param name actor name
+     * @return the actor's id, or -1 if there is no such actor
+     */
+    int indexOf(String name);
+
+    /**
+     * @param v actor id
+     * @return the actor's name
+     */
+    String nameOf(int v);
+
+    /**
+     * @return the actors' names, for prefix searches and suggestions
+     */
+    NameDictionary actorNames();
+
+    /**
+     * @param v actor id
+     * @return number of distinct co-stars of the actor
+     */
+    int degree(int v);
+
+    /**
+     * @return an upper bound on the number of ids neighbors() writes for any actor
+     */
+    int maxNeighbors();
+
+    /**
+     * Write the co-stars of an actor into dest. Every co-star appears at least once, but graphs that do not store
+     * actor-actor edges may list a co-star more than once.
+     *
+     * @param v actor id
+     * @param dest buffer with room for at least maxNeighbors() ids
+     * @return number of ids written
+     */
+    int neighbors(int v, int[] dest);
+
+    /**
+     * @param u actor id
+     * @param v actor id
+     * @return ids of the movies both actors appear in, in increasing order (empty if none)
+     */
+    int[] sharedMovies(int u, int v);
+
+    /**
+     * @return number of movies in the universe
+     */
+    int numMovies();
+
+    /**
+     * @param movie movie id
+     * @return the movie's name
+     */
+    String movieName(int movie);
+
+    /**
+     * @return approximate number of bytes held by the graph's tables, on the heap or mapped from a snapshot
+     */
+    long footprint();
+}
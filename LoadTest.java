@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Load test for BaconServer: measures throughput and latency of a mix of queries at several numbers of concurrent
+ * clients, so it can be seen how the server scales with cores.
+ * The mix is 70% shortest paths between random actors, 20% actors one step from a random center, and 10% best
+ * centers of a random actor's component. Actor names are fetched from the server's /degree query first.
+ *
+ * Usage: java LoadTest [base URL] [concurrency,concurrency,...] [seconds per level]
+ * for example java LoadTest http://localhost:8080 1,2,4,8 10 against a game started with --serve=8080.
+ */
+public class LoadTest {
+    private static final int NAMES = 5000; // actors to pick queries from
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        String[] levels = (args.length > 1 ? args[1] : "1,2,4,8").split(",");
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<String> names = fetchNames(client, base);
+        System.out.println("Picking queries from " + names.size() + " actors");
+        int most = 0;
+        for (String level : levels) most = Math.max(most, Integer.parseInt(level.trim()));
+        run(client, base, names, most, Math.min(seconds, 3)); // warm up the server's JIT, not reported
+
+        System.out.printf("%8s %10s %8s %12s %10s %10s %10s %10s%n",
+                "clients", "requests", "errors", "requests/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (String level : levels) {
+            int clients = Integer.parseInt(level.trim());
+            Result result = run(client, base, names, clients, seconds);
+            GameMetrics.Latency latency = result.latency;
+            System.out.printf("%8d %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n", clients, latency.count, result.errors,
+                    latency.count / (double) seconds, latency.percentile(0.5) / 1e6, latency.percentile(0.9) / 1e6,
+                    latency.percentile(0.99) / 1e6, latency.max / 1e6);
+        }
+    }
+
+    /**
+     * Requests made by one level of the test.
+     */
+    private static class Result {
+        final GameMetrics.Latency latency = new GameMetrics.Latency();
+        long errors; // responses other than 200, and failed requests
+    }
+
+    /**
+     * Send queries from a number of clients, each waiting for one answer before sending the next, for a while.
+     *
+     * @return latencies of all the requests, and how many failed
+     */
+    private static Result run(HttpClient client, String base, List<String> names, int clients, int seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Result[] results = new Result[clients];
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            Result result = results[c] = new Result();
+            Random random = new Random(c);
+            threads[c] = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(base + query(names, random))).build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() != 200) result.errors++;
+                    } catch (IOException e) {
+                        result.errors++;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    result.latency.record(System.nanoTime() - start);
+                }
+            });
+            threads[c].start();
+        }
+        Result total = new Result();
+        for (int c = 0; c < clients; c++) {
+            threads[c].join();
+            total.latency.add(results[c].latency);
+            total.errors += results[c].errors;
+        }
+        return total;
+    }
+
+    private static String query(List<String> names, Random random) {
+        String actor = encode(names.get(random.nextInt(names.size())));
+        int kind = random.nextInt(10);
+        if (kind < 7) return "/path?from=" + actor + "&to=" + encode(names.get(random.nextInt(names.size())));
+        if (kind < 9) return "/separation?center=" + actor + "&low=1&high=1";
+        return "/centers?center=" + actor + "&n=10";
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ask the server for the names of the best-connected actors, by degree.
+     */
+    private static List<String> fetchNames(HttpClient client, String base) throws IOException, InterruptedException {
+        String query = base + "/degree?low=1&high=" + (Integer.MAX_VALUE - 1) + "&limit=" + Integer.MAX_VALUE;
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(query)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) throw new IOException("could not list actors: " + response.body());
+        List<String> names = parseStrings(response.body(), response.body().indexOf('[') + 1);
+        if (names.isEmpty()) throw new IOException("the universe has no actors with co-stars");
+        // the list is in increasing order of degree, so the end of it has the actors most queries would be about
+        return names.subList(Math.max(0, names.size() - NAMES), names.size());
+    }
+
+    /**
+     * Read the JSON strings of an array, from just after its opening bracket to its closing one.
+     */
+    private static List<String> parseStrings(String json, int from) {
+        List<String> strings = new ArrayList<>();
+        int i = from;
+        while (i < json.length() && json.charAt(i) != ']') {
+            if (json.charAt(i) != '"') {
+                i++;
+                continue;
+            }
+            StringBuilder s = new StringBuilder();
+            for (i++; json.charAt(i) != '"'; i++) {
+                char c = json.charAt(i);
+                if (c != '\\') s.append(c);
+                else if (json.charAt(++i) == 'u') {
+                    s.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                    i += 4;
+                } else {
+                    s.append(json.charAt(i));
+                }
+            }
+            strings.add(s.toString());
+            i++;
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,188 @@
+import java.nio.*;
+
+/**
+ * A CSRGraph whose arrays live in a memory-mapped UniverseSnapshot instead of on the heap.
+ * Names stay UTF-8 bytes in the mapping until they are asked for, and names are looked up by binary search over the
+ * snapshot's name-sorted index, so opening one allocates almost nothing regardless of the size of the universe.
+ */
+public class MappedCSRGraph extends AbstractIndexedGraph {
+    private final NameDictionary actorNames, movieNames; // over the snapshot's name tables and name-sorted index
+    private final IntBuffer offsets, neighbors, edgeMovieOffsets, edgeMovies; // as in CSRGraph
+    private final DoubleBuffer separations;
+    private final int maxDegree;
+
+    MappedCSRGraph(IntBuffer actorNameOffsets, ByteBuffer actorNameBytes, IntBuffer movieNameOffsets,
+                   ByteBuffer movieNameBytes, IntBuffer offsets, IntBuffer neighbors, IntBuffer edgeMovieOffsets,
+                   IntBuffer edgeMovies, IntBuffer nameIndex, DoubleBuffer separations) {
+        actorNames = new NameDictionary(actorNameBytes, actorNameOffsets, nameIndex);
+        movieNames = new NameDictionary(movieNameBytes, movieNameOffsets, null);
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.edgeMovieOffsets = edgeMovieOffsets;
+        this.edgeMovies = edgeMovies;
+        this.separations = separations;
+        int max = 0;
+        for (int v = 0; v < numVertices(); v++) max = Math.max(max, degree(v));
+        maxDegree = max;
+    }
+
+    /**
+     * @return the average separations stored in the snapshot, indexed by actor id
+     */
+    public double[] separations() {
+        double[] result = new double[numVertices()];
+        separations.get(0, result);
+        return result;
+    }
+
+    // ---- primitive fast paths, as in CSRGraph ----
+
+    /**
+     * @param v actor id
+     * @return position in the neighbor array of the actor's first edge
+     */
+    public int neighborStart(int v) {
+        return offsets.get(v);
+    }
+
+    /**
+     * @param v actor id
+     * @return position in the neighbor array just past the actor's last edge
+     */
+    public int neighborEnd(int v) {
+        return offsets.get(v + 1);
+    }
+
+    /**
+     * @param edge position in the neighbor array
+     * @return id of the actor at the other end of that edge
+     */
+    public int neighborAt(int edge) {
+        return neighbors.get(edge);
+    }
+
+    /**
+     * Binary search the row of u for v.
+     *
+     * @param u actor id
+     * @param v actor id
+     * @return position in the neighbor array of the edge from u to v, or -1 if they share no movie
+     */
+    public int edgeIndex(int u, int v) {
+        int low = offsets.get(u), high = offsets.get(u + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int w = neighbors.get(mid);
+            if (w < v) low = mid + 1;
+            else if (w > v) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * @param edge position in the neighbor array
+     * @return position in the edge movie array of the edge's first movie
+     */
+    public int edgeMovieStart(int edge) {
+        return edgeMovieOffsets.get(edge);
+    }
+
+    /**
+     * @param edge position in the neighbor array
+     * @return position in the edge movie array just past the edge's last movie
+     */
+    public int edgeMovieEnd(int edge) {
+        return edgeMovieOffsets.get(edge + 1);
+    }
+
+    /**
+     * @param i position in the edge movie array
+     * @return movie id at that position
+     */
+    public int edgeMovieAt(int i) {
+        return edgeMovies.get(i);
+    }
+
+    // ---- IndexedGraph ----
+
+    /**
+     * Binary search of the name index.
+     */
+    @Override
+    public int indexOf(String name) {
+        return actorNames.indexOf(name);
+    }
+
+    @Override
+    public String nameOf(int v) {
+        return actorNames.name(v);
+    }
+
+    @Override
+    public NameDictionary actorNames() {
+        return actorNames;
+    }
+
+    @Override
+    public int degree(int v) {
+        return offsets.get(v + 1) - offsets.get(v);
+    }
+
+    @Override
+    public int maxNeighbors() {
+        return maxDegree;
+    }
+
+    @Override
+    public int neighbors(int v, int[] dest) {
+        neighbors.get(offsets.get(v), dest, 0, degree(v));
+        return degree(v);
+    }
+
+    @Override
+    public int[] sharedMovies(int u, int v) {
+        int edge = edgeIndex(u, v);
+        if (edge < 0) return new int[0];
+        int[] movies = new int[edgeMovieOffsets.get(edge + 1) - edgeMovieOffsets.get(edge)];
+        edgeMovies.get(edgeMovieOffsets.get(edge), movies);
+        return movies;
+    }
+
+    @Override
+    protected int[] distinctNeighbors(int v) {
+        int[] result = new int[degree(v)];
+        neighbors(v, result);
+        return result;
+    }
+
+    @Override
+    public int numMovies() {
+        return movieNames.size();
+    }
+
+    @Override
+    public String movieName(int movie) {
+        return movieNames.name(movie);
+    }
+
+    /**
+     * Almost all of this is the mapping, which the operating system pages in as it is used.
+     */
+    @Override
+    public long footprint() {
+        return actorNames.footprint() + movieNames.footprint()
+                + 4L * (offsets.capacity() + neighbors.capacity() + edgeMovieOffsets.capacity() + edgeMovies.capacity())
+                + 8L * separations.capacity();
+    }
+
+    @Override
+    public int numVertices() {
+        return offsets.limit() - 1;
+    }
+
+    @Override
+    public int numEdges() {
+        return neighbors.limit();
+    }
+}
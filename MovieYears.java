@@ -0,0 +1,69 @@
+import java.util.function.IntPredicate;
+
+/**
+ * Release year of every movie, as a column of shorts indexed by movie id, parsed once from the movies' names, which
+ * end with the year in parentheses, as in "Toy Story (1995)". A few names end with a bare year instead
+ * ("Battle Royale (Batoru Rowaiaru) 2000"); those are read too. Movies with no year in their name have year 0.
+ */
+public class MovieYears {
+    private final short[] years; // movie id -> release year, or 0 if unknown
+
+    private MovieYears(short[] years) {
+        this.years = years;
+    }
+
+    /**
+     * @param g universe whose movies to read the years of
+     * @return the year of every movie of g
+     */
+    public static MovieYears of(IndexedGraph g) {
+        short[] years = new short[g.numMovies()];
+        for (int movie = 0; movie < years.length; movie++) years[movie] = (short) parse(g.movieName(movie));
+        return new MovieYears(years);
+    }
+
+    /**
+     * @param name movie name
+     * @return the year the name ends with, in parentheses or not, or 0 if it does not end with a four-digit year or its parentheses are unpaired
+     */
+    static int parse(String name) {
+        int end = name.length();
+        if (end > 0 && name.charAt(end - 1) == ')') end--;
+        int start = end - 4;
+        if (start < 1) return 0;
+        char before = name.charAt(start - 1);
+        if (before != '(' && before != ' ') return 0;
+        if ((end < name.length()) != (before == '(')) return 0; // parentheses come in pairs
+        int year = 0;
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return 0;
+            year = 10 * year + (c - '0');
+        }
+        return year;
+    }
+
+    /**
+     * @param movie movie id
+     * @return the movie's release year, or 0 if unknown
+     */
+    public int year(int movie) {
+        return years[movie];
+    }
+
+    /**
+     * @param low earliest year
+     * @param high latest year
+     * @return which movies were released from low to high, inclusive; movies of unknown year never are
+     */
+    public IntPredicate between(int low, int high) {
+        return movie -> years[movie] != 0 && years[movie] >= low && years[movie] <= high;
+    }
+
+    /**
+     * @return bytes held by the column
+     */
+    public long footprint() {
+        return 2L * years.length;
+    }
+}
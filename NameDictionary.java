@@ -0,0 +1,433 @@
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact id <-> name dictionary: every name is stored as UTF-8 bytes in one contiguous table, with no String or map
+ * entry per name, and names are decoded only when asked for.
+ * Ids are also kept sorted by name, ignoring ASCII case first and then by the exact bytes, so that exact lookups,
+ * case-insensitive prefix searches and misspelling suggestions are all binary searches or walks of that order.
+ * The tables can be on the heap or in a memory-mapped snapshot.
+ */
+public class NameDictionary {
+    private final ByteBuffer bytes;   // concatenated UTF-8 names
+    private final IntBuffer offsets;  // id -> start of its name in bytes, length size+1
+    private volatile IntBuffer sorted; // ids in name order, built on first search if not given
+
+    /**
+     * Wrap existing tables.
+     *
+     * @param bytes concatenated UTF-8 names
+     * @param offsets start of each name in bytes, plus the end of the last one
+     * @param sorted ids in name order (see sortedIds), or null to sort them on first search
+     */
+    NameDictionary(ByteBuffer bytes, IntBuffer offsets, IntBuffer sorted) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Encode names into a dictionary on the heap.
+     *
+     * @param names name of each id
+     * @return the dictionary, with ids in the same order as names
+     */
+    public static NameDictionary of(String[] names) {
+        byte[][] encoded = new byte[names.length][];
+        int[] offsets = new int[names.length + 1];
+        for (int id = 0; id < names.length; id++) {
+            encoded[id] = names[id].getBytes(StandardCharsets.UTF_8);
+            offsets[id + 1] = Math.addExact(offsets[id], encoded[id].length);
+        }
+        byte[] bytes = new byte[offsets[names.length]];
+        for (int id = 0; id < names.length; id++) System.arraycopy(encoded[id], 0, bytes, offsets[id], encoded[id].length);
+        return new NameDictionary(ByteBuffer.wrap(bytes), IntBuffer.wrap(offsets), null);
+    }
+
+    /**
+     * Renumber the names, so that name order[i] gets id i. The name order is carried over if it was already built.
+     *
+     * @param order every id once, in the order to number them in
+     * @return a new dictionary with the names copied in that order
+     */
+    NameDictionary permute(int[] order) {
+        int n = size();
+        int[] newOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) newOffsets[i + 1] = newOffsets[i] + length(order[i]);
+        byte[] newBytes = new byte[newOffsets[n]];
+        for (int i = 0; i < n; i++) bytes.get(offsets.get(order[i]), newBytes, newOffsets[i], length(order[i]));
+        NameDictionary permuted = new NameDictionary(ByteBuffer.wrap(newBytes), IntBuffer.wrap(newOffsets), null);
+        IntBuffer sorted = this.sorted;
+        if (sorted != null) {
+            int[] newIds = new int[n];
+            for (int i = 0; i < n; i++) newIds[order[i]] = i;
+            int[] ids = new int[n];
+            for (int i = 0; i < n; i++) ids[i] = newIds[sorted.get(i)];
+            for (int i = 0; i < n; ) { // runs of the same name are ordered by id, which has changed
+                int end = i + 1;
+                while (end < n && sameName(sorted.get(i), sorted.get(end))) end++;
+                Arrays.sort(ids, i, end);
+                i = end;
+            }
+            permuted.sorted = IntBuffer.wrap(ids);
+        }
+        return permuted;
+    }
+
+    /**
+     * Append text to some of the names.
+     *
+     * @param suffixes text to append to the name of each id, or null to leave it as it is
+     * @return a new dictionary with the same ids
+     */
+    NameDictionary withSuffixes(String[] suffixes) {
+        int n = size();
+        byte[][] encoded = new byte[n][];
+        int[] newOffsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            if (suffixes[id] != null) encoded[id] = suffixes[id].getBytes(StandardCharsets.UTF_8);
+            newOffsets[id + 1] = Math.addExact(newOffsets[id], length(id) + (encoded[id] == null ? 0 : encoded[id].length));
+        }
+        byte[] newBytes = new byte[newOffsets[n]];
+        for (int id = 0; id < n; id++) {
+            bytes.get(offsets.get(id), newBytes, newOffsets[id], length(id));
+            if (encoded[id] != null) System.arraycopy(encoded[id], 0, newBytes, newOffsets[id] + length(id), encoded[id].length);
+        }
+        return new NameDictionary(ByteBuffer.wrap(newBytes), IntBuffer.wrap(newOffsets), null);
+    }
+
+    /**
+     * Add names after the existing ones.
+     *
+     * @param more names to give the next ids
+     * @return a new dictionary, or this one if there are no names to add
+     */
+    NameDictionary append(List<String> more) {
+        if (more.isEmpty()) return this;
+        int n = size(), length = offsets.get(n);
+        NameDictionary added = of(more.toArray(new String[0]));
+        int[] newOffsets = new int[n + more.size() + 1];
+        offsets.get(0, newOffsets, 0, n + 1);
+        for (int i = 1; i <= more.size(); i++) newOffsets[n + i] = Math.addExact(length, added.offsets.get(i));
+        byte[] newBytes = new byte[newOffsets[n + more.size()]];
+        bytes.get(0, newBytes, 0, length);
+        added.bytes.get(0, newBytes, length, newBytes.length - length);
+        return new NameDictionary(ByteBuffer.wrap(newBytes), IntBuffer.wrap(newOffsets), null);
+    }
+
+    /**
+     * @return number of names
+     */
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * @param id id of a name
+     * @return the name
+     */
+    public String name(int id) {
+        byte[] name = new byte[length(id)];
+        bytes.get(offsets.get(id), name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param id id of a name
+     * @return the name's UTF-8 bytes
+     */
+    byte[] nameBytes(int id) {
+        byte[] name = new byte[length(id)];
+        bytes.get(offsets.get(id), name);
+        return name;
+    }
+
+    /**
+     * @return approximate number of bytes held by the tables, including the name order once it is built
+     */
+    public long footprint() {
+        IntBuffer sorted = this.sorted;
+        return bytes.capacity() + 4L * offsets.capacity() + (sorted == null ? 0 : 4L * sorted.capacity());
+    }
+
+    private int length(int id) {
+        return offsets.get(id + 1) - offsets.get(id);
+    }
+
+    private static byte fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * Compare a name with a key in name order: ignoring ASCII case, then by exact bytes.
+     *
+     * @param exact whether to break ties of the case-insensitive comparison by exact bytes
+     */
+    private int compare(int id, byte[] key, boolean exact) {
+        int start = offsets.get(id), length = length(id);
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int difference = Byte.compareUnsigned(fold(bytes.get(start + i)), fold(key[i]));
+            if (difference != 0) return difference;
+        }
+        if (length != key.length) return length - key.length;
+        if (!exact) return 0;
+        for (int i = 0; i < length; i++) {
+            int difference = Byte.compareUnsigned(bytes.get(start + i), key[i]);
+            if (difference != 0) return difference;
+        }
+        return 0;
+    }
+
+    /**
+     * Compare two names in name order, with ties broken by id so that the order is total.
+     */
+    private int compareIds(int u, int v) {
+        int start = offsets.get(u), length = length(u), other = offsets.get(v), otherLength = length(v);
+        for (int i = 0; i < Math.min(length, otherLength); i++) {
+            int difference = Byte.compareUnsigned(fold(bytes.get(start + i)), fold(bytes.get(other + i)));
+            if (difference != 0) return difference;
+        }
+        if (length != otherLength) return length - otherLength;
+        for (int i = 0; i < length; i++) {
+            int difference = Byte.compareUnsigned(bytes.get(start + i), bytes.get(other + i));
+            if (difference != 0) return difference;
+        }
+        return Integer.compare(u, v);
+    }
+
+    /**
+     * @return the four bytes of a name from position depth, folded and padded with zeros, as an unsigned int; names
+     *         that agree before depth are ordered by it the way their full comparison orders them, or tie
+     */
+    private int prefixKey(int id, int depth) {
+        int start = offsets.get(id), length = length(id), key = 0;
+        for (int i = depth; i < depth + 4; i++) key = key << 8 | (i < length ? fold(bytes.get(start + i)) & 0xFF : 0);
+        return key;
+    }
+
+    /**
+     * @return whether two ids have exactly the same name
+     */
+    boolean sameName(int u, int v) {
+        int length = length(u);
+        if (length(v) != length) return false;
+        int start = offsets.get(u), other = offsets.get(v);
+        for (int i = 0; i < length; i++) {
+            if (bytes.get(start + i) != bytes.get(other + i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a name starts with the first length bytes of prefix, ignoring ASCII case
+     */
+    private boolean startsWith(int id, byte[] prefix, int length) {
+        if (length(id) < length) return false;
+        int start = offsets.get(id);
+        for (int i = 0; i < length; i++) {
+            if (fold(bytes.get(start + i)) != fold(prefix[i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Built once, by whichever thread searches first; later calls only read the field.
+     *
+     * @return ids in name order
+     */
+    IntBuffer sortedIds() {
+        IntBuffer order = sorted;
+        if (order == null) {
+            synchronized (this) {
+                order = sorted;
+                if (order == null) sorted = order = IntBuffer.wrap(sortIds());
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Sort the ids by name without copying the names or boxing the ids.
+     */
+    private int[] sortIds() {
+        int n = size();
+        int[] ids = new int[n];
+        for (int id = 0; id < n; id++) ids[id] = id;
+        sortRange(ids, new long[n], new int[n], 0, n, 0);
+        return ids;
+    }
+
+    /**
+     * Sort a range of ids whose names agree, ignoring case, before position depth: as longs holding the prefix key
+     * at depth above the id, then each run that ties on it four bytes deeper, until a run is small or its names are
+     * used up, when the names are compared in place.
+     */
+    private void sortRange(int[] ids, long[] keys, int[] scratch, int from, int to, int depth) {
+        if (to - from <= 16) {
+            mergeSort(ids, scratch, from, to);
+            return;
+        }
+        for (int i = from; i < to; i++) keys[i] = ((long) prefixKey(ids[i], depth) << 32 ^ Long.MIN_VALUE) | ids[i]; // unsigned key order
+        Arrays.sort(keys, from, to);
+        for (int i = from; i < to; i++) ids[i] = (int) keys[i];
+        for (int i = from; i < to; ) {
+            int end = i + 1;
+            boolean longer = length(ids[i]) > depth + 4;
+            while (end < to && keys[end] >>> 32 == keys[i] >>> 32) longer |= length(ids[end++]) > depth + 4;
+            if (longer) sortRange(ids, keys, scratch, i, end, depth + 4);
+            else if (end - i > 1) mergeSort(ids, scratch, i, end);
+            i = end;
+        }
+    }
+
+    /**
+     * Sort a range of ids by compareIds, using the same range of scratch.
+     */
+    private void mergeSort(int[] ids, int[] scratch, int from, int to) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int id = ids[i], j = i;
+                for (; j > from && compareIds(ids[j - 1], id) > 0; j--) ids[j] = ids[j - 1];
+                ids[j] = id;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(ids, scratch, from, mid);
+        mergeSort(ids, scratch, mid, to);
+        if (compareIds(ids[mid - 1], ids[mid]) <= 0) return; // already in order
+        System.arraycopy(ids, from, scratch, from, to - from);
+        for (int i = from, left = from, right = mid; i < to; i++) {
+            if (right == to || left < mid && compareIds(scratch[left], scratch[right]) <= 0) ids[i] = scratch[left++];
+            else ids[i] = scratch[right++];
+        }
+    }
+
+    /**
+     * Binary search the name order.
+     *
+     * @param name name to find, exactly
+     * @return its id, or -1 if there is no such name
+     */
+    public int indexOf(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        IntBuffer order = sortedIds();
+        int low = 0, high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = compare(order.get(mid), key, true);
+            if (comparison < 0) low = mid + 1;
+            else if (comparison > 0) high = mid - 1;
+            else return order.get(mid);
+        }
+        return -1;
+    }
+
+    /**
+     * @return position in name order of the first name not less than the first length bytes of prefix, ignoring case
+     */
+    private int lowerBound(byte[] prefix, int length, int from) {
+        IntBuffer order = sortedIds();
+        byte[] key = Arrays.copyOf(prefix, length);
+        int low = from, high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(order.get(mid), key, false) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return position in name order just past the names from position from on that start with the first length bytes of prefix
+     */
+    private int prefixEnd(byte[] prefix, int length, int from) {
+        IntBuffer order = sortedIds();
+        int low = from, high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startsWith(order.get(mid), prefix, length)) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Names starting with a prefix, ignoring ASCII case, in name order.
+     *
+     * @param prefix start of the names wanted
+     * @param limit most ids to return
+     * @return ids of the matching names
+     */
+    public int[] withPrefix(String prefix, int limit) {
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        IntBuffer order = sortedIds();
+        int from = lowerBound(key, key.length, 0);
+        int to = Math.min(prefixEnd(key, key.length, from), from + limit);
+        int[] ids = new int[to - from];
+        for (int i = from; i < to; i++) ids[i - from] = order.get(i);
+        return ids;
+    }
+
+    /**
+     * Names within an edit distance of a query, ignoring ASCII case, closest first.
+     * Walks the name order as if it were a trie: consecutive names share a prefix, so the rows of the edit distance
+     * table for that prefix are kept from one name to the next, and once every entry of a row is over the bound,
+     * every name with that prefix is skipped with one binary search.
+     *
+     * @param query possibly misspelled name
+     * @param maxDistance most insertions, deletions and substitutions (counted on UTF-8 bytes) allowed
+     * @param limit most ids to return
+     * @return ids of the closest names, by distance and then name order
+     */
+    public int[] suggest(String query, int maxDistance, int limit) {
+        byte[] key = query.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < key.length; i++) key[i] = fold(key[i]);
+        IntBuffer order = sortedIds();
+        int m = key.length;
+        int[][] rows = new int[16][m + 1]; // rows[d] = distances from the first d bytes of the current name
+        for (int j = 0; j <= m; j++) rows[0][j] = j;
+        byte[] previous = new byte[0];     // folded bytes of the last name walked
+        int valid = 0;                     // rows 0..valid are correct for previous's prefix
+        List<long[]> found = new ArrayList<>(); // {distance, position in name order}
+
+        for (int i = 0; i < size(); ) {
+            int id = order.get(i);
+            byte[] name = nameBytes(id);
+            for (int k = 0; k < name.length; k++) name[k] = fold(name[k]);
+            int depth = 0;
+            while (depth < Math.min(valid, Math.min(previous.length, name.length)) && previous[depth] == name[depth]) depth++;
+            if (rows.length <= name.length) rows = Arrays.copyOf(rows, Math.max(rows.length * 2, name.length + 1));
+            int pruned = -1;
+            for (int d = depth + 1; d <= name.length; d++) {
+                if (rows[d] == null) rows[d] = new int[m + 1];
+                int[] row = rows[d], above = rows[d - 1];
+                row[0] = d;
+                int best = row[0];
+                for (int j = 1; j <= m; j++) {
+                    int substitution = above[j - 1] + (name[d - 1] == key[j - 1] ? 0 : 1);
+                    row[j] = Math.min(substitution, Math.min(above[j] + 1, row[j - 1] + 1));
+                    best = Math.min(best, row[j]);
+                }
+                if (best > maxDistance) { // no extension of this prefix can come back within the bound
+                    pruned = d;
+                    break;
+                }
+            }
+            previous = name;
+            if (pruned >= 0) {
+                valid = pruned - 1;
+                i = prefixEnd(name, pruned, i);
+            } else {
+                valid = name.length;
+                if (rows[name.length][m] <= maxDistance) found.add(new long[] {rows[name.length][m], i});
+                i++;
+            }
+        }
+        found.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        int[] ids = new int[Math.min(limit, found.size())];
+        for (int k = 0; k < ids.length; k++) ids[k] = order.get((int) found.get(k)[1]);
+        return ids;
+    }
+}
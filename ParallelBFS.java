@@ -0,0 +1,244 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Level-synchronous, direction-optimizing BFS (Beamer, Asanovic and Patterson, SC 2012) for single-source searches
+ * of the whole universe, such as a new center's.
+ * A few hops from a well-connected actor the frontier holds most of the universe, and pushing from every frontier
+ * actor to its co-stars then mostly finds actors that are already visited. So each level is expanded one of two ways:
+ * top-down from the frontier while it is small, and bottom-up, with every unvisited actor looking for a co-star on
+ * the frontier and stopping at the first one, once the frontier's edges outnumber the unvisited actors' edges by
+ * ALPHA; it goes back to top-down once the frontier falls below 1/BETA of the actors. Frontiers are bitsets, and each
+ * level's work is split across a ForkJoinPool.
+ *
+ * Distances are the same as graphLibrary.bfs's. Parents differ, but do not depend on threads or timing: an actor's
+ * parent is always its smallest-id co-star on the level before it, and each level is in increasing id order.
+ * BipartiteGraph universes, and views of them, are searched by graphLibrary.bfs instead, in the caller's thread.
+ */
+public class ParallelBFS {
+    static final int ALPHA = 14, BETA = 24;
+    private static final int ACTOR_GRAIN = 256, WORD_GRAIN = 64; // least frontier actors or bitset words worth a part
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Search from a source, refilling a reusable result.
+     *
+     * @param g graph to search
+     * @param source id of the actor to start from
+     * @param result result to refill, with capacity for every actor of g
+     * @param pool pool to expand levels in, or null to expand them in this thread
+     * @return result, holding every actor reachable from source, in BFS order with levels indexed
+     */
+    public static BFSResult bfs(IndexedGraph g, int source, BFSResult result, ForkJoinPool pool) {
+        // a filtered view counts an actor's co-stars only when asked, by listing them, so the switch between directions
+        // is sized from the universe under it, whose degrees bound the view's
+        IndexedGraph sizes = g;
+        while (sizes instanceof FilteredGraph view) sizes = view.base();
+        // expanding a movie at a time, which needs no co-star lists, beats splitting levels of a bipartite universe
+        if (sizes instanceof BipartiteGraph) return graphLibrary.bfs(g, source, result);
+        int n = g.numVertices();
+        if (result.capacity() < n) throw new IllegalArgumentException("BFSResult too small for graph");
+        GameEvents.BFS event = new GameEvents.BFS();
+        event.begin();
+        int words = (n + 63) >>> 6;
+        if (result.frontierBits.length < words) {
+            result.frontierBits = new long[words];
+            result.nextBits = new long[words];
+        }
+        result.reset(source);
+        long[] frontier = result.frontierBits, next = result.nextBits;
+        Arrays.fill(frontier, 0, words, 0);
+        Arrays.fill(next, 0, words, 0);
+        int maxParts = ParallelTasks.parts(pool);
+        int[][] buffers = new int[maxParts][];  // neighbor scratch of each part, for graphs without CSR rows
+        long[] scanned = new long[maxParts];   // edges looked at by each part
+
+        int epoch = result.epoch;
+        result.stamp[source] = epoch;
+        result.dist[source] = 0;
+        result.parent[source] = -1;
+        result.order[0] = source;
+        frontier[source >>> 6] = 1L << source;
+        long frontierEdges = sizes.degree(source), unvisitedEdges = sizes.numEdges() - frontierEdges;
+        int levelStart = 0, levelEnd = 1;
+        boolean bottomUp = false;
+        for (int level = 1; levelEnd > levelStart; level++) {
+            if (!bottomUp && frontierEdges > unvisitedEdges / ALPHA) bottomUp = true;
+            else if (bottomUp && levelEnd - levelStart < n / BETA) bottomUp = false;
+            if (bottomUp) bottomUp(g, result, level, frontier, next, words, pool, buffers, scanned);
+            else topDown(g, result, level, levelStart, levelEnd, frontier, next, words, pool, buffers, scanned);
+
+            // the next frontier, in increasing id order, is the next level of the BFS order
+            int end = levelEnd;
+            frontierEdges = 0;
+            for (int w = 0; w < words; w++) {
+                for (long bits = next[w]; bits != 0; bits &= bits - 1) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    result.order[end++] = v;
+                    frontierEdges += sizes.degree(v);
+                }
+            }
+            unvisitedEdges -= frontierEdges;
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+            Arrays.fill(next, 0, words, 0);
+            levelStart = levelEnd;
+            levelEnd = end;
+        }
+        result.size = levelEnd;
+        result.indexLevels();
+
+        long edges = 0;
+        for (long part : scanned) edges += part;
+        GameMetrics.countBFS(levelEnd, edges);
+        event.source = source;
+        event.reached = levelEnd;
+        event.edges = edges;
+        event.commit();
+        return result;
+    }
+
+    /**
+     * Expand a level from the frontier: mark every unvisited co-star of a frontier actor in next, then give each
+     * marked actor its parent and distance. In one part the frontier is walked in increasing id order, so the first
+     * actor to reach a co-star is its parent, and both are done at once.
+     */
+    private static void topDown(IndexedGraph g, BFSResult result, int level, int levelStart, int levelEnd,
+                                long[] frontier, long[] next, int words, ForkJoinPool pool, int[][] buffers, long[] scanned) {
+        int[] stamp = result.stamp, order = result.order;
+        int epoch = result.epoch;
+        int size = levelEnd - levelStart;
+        int parts = parts(pool, size, ACTOR_GRAIN);
+        if (parts == 1) {
+            for (int i = levelStart; i < levelEnd; i++) {
+                int u = order[i];
+                if (g instanceof CSRGraph csr) {
+                    scanned[0] += csr.degree(u);
+                    for (int edge = csr.neighborStart(u); edge < csr.neighborEnd(u); edge++) {
+                        int v = csr.neighborAt(edge);
+                        if (stamp[v] == epoch) continue;
+                        visit(result, v, level, u);
+                        next[v >>> 6] |= 1L << v;
+                    }
+                } else {
+                    int[] buffer = buffer(g, buffers, 0);
+                    int count = g.neighbors(u, buffer);
+                    scanned[0] += count;
+                    for (int j = 0; j < count; j++) {
+                        int v = buffer[j];
+                        if (stamp[v] == epoch) continue;
+                        visit(result, v, level, u);
+                        next[v >>> 6] |= 1L << v;
+                    }
+                }
+            }
+            return;
+        }
+        ParallelTasks.forEach(pool, parts, part -> {
+            int from = levelStart + (int) ((long) size * part / parts), to = levelStart + (int) ((long) size * (part + 1) / parts);
+            for (int i = from; i < to; i++) {
+                int u = order[i];
+                if (g instanceof CSRGraph csr) {
+                    scanned[part] += csr.degree(u);
+                    for (int edge = csr.neighborStart(u); edge < csr.neighborEnd(u); edge++) mark(csr.neighborAt(edge), stamp, epoch, next);
+                } else {
+                    int[] buffer = buffer(g, buffers, part);
+                    int count = g.neighbors(u, buffer);
+                    scanned[part] += count;
+                    for (int j = 0; j < count; j++) mark(buffer[j], stamp, epoch, next);
+                }
+            }
+        });
+        int wordParts = parts(pool, words, WORD_GRAIN);
+        ParallelTasks.forEach(pool, wordParts, part -> {
+            for (int w = (int) ((long) words * part / wordParts); w < (int) ((long) words * (part + 1) / wordParts); w++) {
+                for (long bits = next[w]; bits != 0; bits &= bits - 1) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    visit(result, v, level, frontierParent(g, v, frontier, buffers, scanned, part));
+                }
+            }
+        });
+    }
+
+    /**
+     * Expand a level toward the frontier: every unvisited actor whose co-star is on the frontier joins next.
+     * Parts own whole words of next, so no two parts write the same word.
+     */
+    private static void bottomUp(IndexedGraph g, BFSResult result, int level, long[] frontier, long[] next, int words,
+                                 ForkJoinPool pool, int[][] buffers, long[] scanned) {
+        int n = g.numVertices();
+        int parts = parts(pool, words, WORD_GRAIN);
+        ParallelTasks.forEach(pool, parts, part -> {
+            for (int w = (int) ((long) words * part / parts); w < (int) ((long) words * (part + 1) / parts); w++) {
+                long found = 0;
+                for (int v = w << 6; v < Math.min(n, (w + 1) << 6); v++) {
+                    if (result.stamp[v] == result.epoch) continue;
+                    int parent = frontierParent(g, v, frontier, buffers, scanned, part);
+                    if (parent < 0) continue;
+                    visit(result, v, level, parent);
+                    found |= 1L << v;
+                }
+                next[w] = found;
+            }
+        });
+    }
+
+    /**
+     * Mark an actor for the next frontier if no level has reached it yet. Several parts may mark the same word.
+     */
+    private static void mark(int v, int[] stamp, int epoch, long[] next) {
+        if (stamp[v] == epoch) return;
+        long bit = 1L << v;
+        if ((next[v >>> 6] & bit) == 0) WORDS.getAndBitwiseOr(next, v >>> 6, bit);
+    }
+
+    private static void visit(BFSResult result, int v, int level, int parent) {
+        result.stamp[v] = result.epoch;
+        result.dist[v] = level;
+        result.parent[v] = parent;
+    }
+
+    /**
+     * @return smallest id of a co-star of v on the frontier, or -1 if none is
+     */
+    private static int frontierParent(IndexedGraph g, int v, long[] frontier, int[][] buffers, long[] scanned, int part) {
+        if (g instanceof CSRGraph csr) { // rows are sorted, so the first one found is the smallest
+            int start = csr.neighborStart(v), end = csr.neighborEnd(v);
+            for (int edge = start; edge < end; edge++) {
+                int u = csr.neighborAt(edge);
+                if ((frontier[u >>> 6] & (1L << u)) != 0) {
+                    scanned[part] += edge - start + 1;
+                    return u;
+                }
+            }
+            scanned[part] += end - start;
+            return -1;
+        }
+        int[] buffer = buffer(g, buffers, part);
+        int count = g.neighbors(v, buffer);
+        scanned[part] += count;
+        int parent = -1;
+        for (int i = 0; i < count; i++) {
+            int u = buffer[i];
+            if ((frontier[u >>> 6] & (1L << u)) != 0 && (parent < 0 || u < parent)) parent = u;
+        }
+        return parent;
+    }
+
+    private static int[] buffer(IndexedGraph g, int[][] buffers, int part) {
+        if (buffers[part] == null) buffers[part] = new int[g.maxNeighbors()];
+        return buffers[part];
+    }
+
+    /**
+     * @return number of parts to split work of some size into, so that each is worth running on its own; just one
+     *         if there is only one thread to run them
+     */
+    private static int parts(ForkJoinPool pool, int size, int grain) {
+        if (pool == null || pool.getParallelism() == 1) return 1;
+        return Math.max(1, Math.min(ParallelTasks.parts(pool), size / grain));
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test class for ParallelBFS.java
+ * Searches the bundled test universe, and a generated one big enough for levels to be split across threads, from
+ * several sources with pools of 1, 2 and 4 threads, and checks each search against graphLibrary.bfs: the same actors
+ * at the same distances, every parent a co-star one level closer, and, except on bipartite layouts (which are
+ * searched by graphLibrary.bfs itself), every parent the smallest-id such co-star, whatever the number of threads.
+ * Expected output commented below
+ */
+public class ParallelBFSTest {
+    public static void main(String[] args) {
+        CastTable bundled = CastTable.fromMaps(BaconReader.readIDs("bacon/actorsTest.txt"),
+                BaconReader.readIDs("bacon/moviesTest.txt"), BaconReader.readMovieActors("bacon/movie-actorsTest.txt"));
+        CastTable generated = generate(20000, 8000, 12, new Random(10));
+
+        ForkJoinPool[] pools = {null, new ForkJoinPool(2), new ForkJoinPool(4)};
+        for (CastTable casts : new CastTable[] {bundled, generated}) {
+            System.out.println(casts.numActors() + " actors, " + casts.numMovies() + " movies");
+            IndexedGraph[] layouts = {CSRGraph.fromCasts(casts), CompressedGraph.fromCasts(casts, null), new BipartiteGraph(casts)};
+            for (IndexedGraph testGraph : layouts) {
+                int n = testGraph.numVertices();
+                BFSResult expected = new BFSResult(n);
+                BFSResult[] results = new BFSResult[pools.length];
+                for (int i = 0; i < pools.length; i++) results[i] = new BFSResult(n);
+                int sources = 0, reached = 0, mismatches = 0;
+                for (int source = 0; source < n; source += Math.max(1, n / 8)) {
+                    sources++;
+                    graphLibrary.bfs(testGraph, source, expected);
+                    reached += expected.size();
+                    for (int i = 0; i < pools.length; i++) {
+                        BFSResult result = ParallelBFS.bfs(testGraph, source, results[i], pools[i]);
+                        mismatches += check(testGraph, expected, result, !(testGraph instanceof BipartiteGraph));
+                        for (int v = 0; v < n; v++) { // the same parents with any number of threads
+                            if (result.parent(v) != results[0].parent(v)) mismatches++;
+                        }
+                    }
+                }
+                System.out.println(testGraph.getClass().getSimpleName() + ": " + sources + " sources, " + reached
+                        + " actors reached, " + mismatches + " mismatches");
+            }
+        }
+        for (ForkJoinPool pool : pools) {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    /**
+     * @return number of actors whose distance, parent or place in the BFS order is wrong
+     */
+    private static int check(IndexedGraph g, BFSResult expected, BFSResult result, boolean smallestParents) {
+        int mismatches = 0;
+        if (result.size() != expected.size() || result.depth() != expected.depth()) mismatches++;
+        for (int i = 1; i < result.size(); i++) { // levels in order
+            if (result.distance(result.vertexAt(i)) < result.distance(result.vertexAt(i - 1))) mismatches++;
+        }
+        int[] neighbors = new int[g.maxNeighbors()];
+        for (int v = 0; v < g.numVertices(); v++) {
+            if (result.distance(v) != expected.distance(v)) {
+                mismatches++;
+                continue;
+            }
+            if (!result.reachable(v) || v == result.source()) continue;
+            int parent = result.parent(v);
+            if (result.distance(parent) != result.distance(v) - 1 || g.sharedMovies(parent, v).length == 0) mismatches++;
+            if (!smallestParents) continue;
+            int smallest = Integer.MAX_VALUE;
+            for (int i = 0, count = g.neighbors(v, neighbors); i < count; i++) {
+                if (result.distance(neighbors[i]) == result.distance(v) - 1) smallest = Math.min(smallest, neighbors[i]);
+            }
+            if (parent != smallest) mismatches++;
+        }
+        return mismatches;
+    }
+
+    /**
+     * @return a universe of random casts of 2 to maxCast actors, each actor in at least one movie
+     */
+    private static CastTable generate(int numActors, int numMovies, int maxCast, Random random) {
+        Map<Integer, String> actors = new HashMap<>(), movies = new HashMap<>();
+        Map<Integer, ArrayList<Integer>> casts = new HashMap<>();
+        for (int a = 0; a < numActors; a++) actors.put(a, "Actor " + a);
+        for (int m = 0; m < numMovies; m++) {
+            movies.put(m, "Movie " + m);
+            ArrayList<Integer> cast = new ArrayList<>();
+            for (int size = 2 + random.nextInt(maxCast - 1); cast.size() < size; ) cast.add(random.nextInt(numActors));
+            casts.put(m, cast);
+        }
+        for (int a = 0; a < numActors; a++) casts.get(random.nextInt(numMovies)).add(a);
+        return CastTable.fromMaps(actors, movies, casts);
+    }
+
+    /* OUTPUT
+    7 actors, 6 movies
+    CSRGraph: 7 sources, 29 actors reached, 0 mismatches
+    CompressedGraph: 7 sources, 29 actors reached, 0 mismatches
+    BipartiteGraph: 7 sources, 29 actors reached, 0 mismatches
+    20000 actors, 8000 movies
+    CSRGraph: 8 sources, 160000 actors reached, 0 mismatches
+    CompressedGraph: 8 sources, 160000 actors reached, 0 mismatches
+    BipartiteGraph: 8 sources, 160000 actors reached, 0 mismatches
+     */
+}
@@ -0,0 +1,55 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs numbered tasks across a ForkJoinPool, for the loading stages that split their work into independent parts.
+ */
+public class ParallelTasks {
+    /**
+     * Run body(0) .. body(count-1), in parallel if a pool is given, and wait for all of them.
+     * The first exception thrown by any part is rethrown, unwrapped, once every part has finished.
+     *
+     * @param pool pool to run the parts in, or null to run them one after another in this thread
+     * @param count number of parts
+     * @param body work for one part
+     */
+    public static void forEach(ForkJoinPool pool, int count, IntConsumer body) {
+        if (pool == null || count <= 1) {
+            for (int i = 0; i < count; i++) body.accept(i);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int part = i;
+            tasks.add(() -> {
+                body.accept(part);
+                return null;
+            });
+        }
+        RuntimeException failure = null;
+        for (Future<Void> result : pool.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                if (failure != null) continue;
+                if (e.getCause() instanceof RuntimeException) failure = (RuntimeException) e.getCause();
+                else if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                else failure = new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("interrupted while waiting for parallel work");
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * @param pool pool the work will run in, or null for this thread alone
+     * @return how many parts to split work into so every worker stays busy
+     */
+    public static int parts(ForkJoinPool pool) {
+        return pool == null ? 1 : pool.getParallelism() * 4;
+    }
+}
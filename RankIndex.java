@@ -0,0 +1,122 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Immutable rankings of the universe's actors, built once so that degree ranges and best or worst centers can be
+ * listed without sorting the whole universe on every query.
+ * Actors are stored in order of degree and in order of average separation (ties by id, NaN last); a degree range is
+ * found by binary search and is then a contiguous slice, and the top or bottom k centers are the first or last k
+ * entries that pass a filter, such as being reachable from the current center.
+ */
+public class RankIndex {
+    private final int[] byDegree;    // actor ids in increasing order of degree
+    private final int[] degrees;     // degree of each actor in byDegree, for binary search
+    private final int[] byCloseness; // actor ids in increasing order of average separation
+
+    /**
+     * Rank the actors of a universe.
+     *
+     * @param g universe
+     * @param separations average separation by actor id
+     * @param pool pool to compute degrees in, or null to compute them in this thread
+     */
+    public RankIndex(IndexedGraph g, double[] separations, ForkJoinPool pool) {
+        int n = g.numVertices();
+        int parts = Math.max(1, Math.min(n, ParallelTasks.parts(pool)));
+        long[] keys = new long[n]; // degree in the high half, id in the low half, so one sort orders both
+        ParallelTasks.forEach(pool, parts, p -> {
+            for (int v = (int) ((long) n * p / parts); v < (long) n * (p + 1) / parts; v++) keys[v] = ((long) g.degree(v) << 32) | v;
+        });
+        Arrays.sort(keys);
+        byDegree = new int[n];
+        degrees = new int[n];
+        for (int i = 0; i < n; i++) {
+            byDegree[i] = (int) keys[i];
+            degrees[i] = (int) (keys[i] >>> 32);
+        }
+
+        // a separation does not fit in half a long, so each is replaced by its rank among the sorted separations;
+        // Arrays.sort orders doubles like Double.compare, with NaN after everything else
+        double[] sorted = Arrays.copyOf(separations, n);
+        Arrays.sort(sorted);
+        ParallelTasks.forEach(pool, parts, p -> {
+            for (int v = (int) ((long) n * p / parts); v < (long) n * (p + 1) / parts; v++) {
+                keys[v] = ((long) rank(sorted, separations[v]) << 32) | v;
+            }
+        });
+        Arrays.sort(keys);
+        byCloseness = new int[n];
+        for (int i = 0; i < n; i++) byCloseness[i] = (int) keys[i];
+    }
+
+    /**
+     * @param sorted values in Double.compare order
+     * @param value one of them
+     * @return position of the first value equal to it, so equal values get equal ranks
+     */
+    private static int rank(double[] sorted, double value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(sorted[mid], value) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * @return number of actors ranked
+     */
+    public int size() {
+        return byDegree.length;
+    }
+
+    /**
+     * @return approximate number of bytes held by the rankings
+     */
+    public long footprint() {
+        return 4L * (byDegree.length + degrees.length + byCloseness.length);
+    }
+
+    /**
+     * Actors with degree between low and high are actorByDegree(degreeStart(low)) .. actorByDegree(degreeStart(high + 1) - 1).
+     *
+     * @param degree lowest degree wanted
+     * @return position in degree order of the first actor with at least that degree
+     */
+    public int degreeStart(int degree) {
+        int lo = 0, hi = degrees.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (degrees[mid] < degree) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Like degreeStart(degree + 1), but without overflowing for degree = Integer.MAX_VALUE, a natural "no limit".
+     *
+     * @param degree highest degree wanted
+     * @return position in degree order just past the last actor with at most that degree
+     */
+    public int degreeEnd(int degree) {
+        return degree == Integer.MAX_VALUE ? degrees.length : degreeStart(degree + 1);
+    }
+
+    /**
+     * @param i position in degree order
+     * @return the actor with the i-th smallest degree
+     */
+    public int actorByDegree(int i) {
+        return byDegree[i];
+    }
+
+    /**
+     * @param i position in separation order
+     * @return the actor with the i-th smallest average separation
+     */
+    public int actorByCloseness(int i) {
+        return byCloseness[i];
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.*;
+
+/**
+ * Test class for graphLibrary.shortestPath
+ * Builds the universe from the bundled test files, as CSR rows and as bipartite incidence lists, and checks the
+ * bidirectional search between every pair of actors against the BFS tree built from the first: the separations must
+ * be the same, and each hop's movie must be one the two actors made together. Expected output commented below
+ */
+public class ShortestPathTest {
+    public static void main(String[] args) {
+        CastTable casts = CastTable.fromMaps(BaconReader.readIDs("bacon/actorsTest.txt"),
+                BaconReader.readIDs("bacon/moviesTest.txt"), BaconReader.readMovieActors("bacon/movie-actorsTest.txt"));
+        IndexedGraph[] layouts = {CSRGraph.fromCasts(casts), new BipartiteGraph(casts)};
+
+        System.out.println("shortestPath check");
+        for (IndexedGraph testGraph : layouts) {
+            System.out.println(testGraph.getClass().getSimpleName() + ":");
+            System.out.println(graphLibrary.shortestPath(testGraph, "Kevin Bacon", "Dartmouth (Earl thereof)"));
+            System.out.println(graphLibrary.shortestPath(testGraph, "Dartmouth (Earl thereof)", "Kevin Bacon"));
+            System.out.println(graphLibrary.shortestPath(testGraph, "Alice", "Alice"));
+            System.out.println(graphLibrary.shortestPath(testGraph, "Kevin Bacon", "Nobody"));
+            System.out.println(graphLibrary.shortestPath(testGraph, "Kevin Bacon", "Nobody at all"));
+        }
+
+        System.out.println("baseline check");
+        for (IndexedGraph testGraph : layouts) {
+            int pairs = 0, mismatches = 0;
+            BFSResult forward = new BFSResult(testGraph.numVertices()), backward = new BFSResult(testGraph.numVertices());
+            for (String a : testGraph.vertices()) {
+                Graph<String, Set<String>> tree = graphLibrary.bfs(testGraph, a);
+                for (String b : testGraph.vertices()) {
+                    pairs++;
+                    ActorPath path = graphLibrary.shortestPath(testGraph, a, b, forward, backward);
+                    if (!tree.hasVertex(b)) {
+                        if (path != null) mismatches++;
+                        continue;
+                    }
+                    List<String> expected = graphLibrary.getPath(tree, b);
+                    if (path == null || path.length() != expected.size() - 1
+                            || !path.actors().get(0).equals(a) || !path.actors().get(path.length()).equals(b)) {
+                        mismatches++;
+                        continue;
+                    }
+                    for (int i = 0; i < path.length(); i++) {
+                        Set<String> label = testGraph.getLabel(path.actors().get(i), path.actors().get(i + 1));
+                        if (label == null || !label.contains(path.movies().get(i))) mismatches++;
+                    }
+                }
+            }
+            System.out.println(testGraph.getClass().getSimpleName() + ": " + pairs + " pairs, " + mismatches + " mismatches");
+        }
+    }
+
+    /* OUTPUT
+    shortestPath check
+    CSRGraph:
+    [Kevin Bacon -(A movie)- Alice -(D movie)- Charlie -(B movie)- Dartmouth (Earl thereof)]
+    [Dartmouth (Earl thereof) -(B movie)- Charlie -(D movie)- Alice -(A movie)- Kevin Bacon]
+    [Alice]
+    null
+    null
+    BipartiteGraph:
+    [Kevin Bacon -(A movie)- Bob -(C movie)- Charlie -(B movie)- Dartmouth (Earl thereof)]
+    [Dartmouth (Earl thereof) -(B movie)- Charlie -(D movie)- Alice -(A movie)- Kevin Bacon]
+    [Alice]
+    null
+    null
+    baseline check
+    CSRGraph: 49 pairs, 0 mismatches
+    BipartiteGraph: 49 pairs, 0 mismatches
+     */
+}
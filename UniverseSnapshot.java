@@ -0,0 +1,197 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of a loaded universe: the actor and movie name tables, the CSR adjacency with its
+ * edge-to-movie runs, and the precomputed average separations.
+ * A snapshot is written once after a full load, and opened later with FileChannel.map, so that startup does no
+ * parsing and builds no object graph (see MappedCSRGraph).
+ *
+ * It records the size, modification time and CRC32 of each source text file. A snapshot whose sources changed size
+ * is stale; one whose sources were only touched is still used if their checksums match.
+ *
+ * Layout (little-endian): header, then int sections, each aligned to 8 bytes:
+ *     magic, version, number of sources, (size, mtime, crc) per source,
+ *     number of actors, movies, edges and edge-movie entries, sizes of the actor and movie name byte tables
+ *     actor name offsets, movie name offsets, CSR offsets, neighbors, edge movie offsets, edge movies,
+ *     actor ids sorted by name (NameDictionary order), average separations (doubles), actor name bytes, movie name bytes (UTF-8)
+ */
+public class UniverseSnapshot {
+    static final int MAGIC = 0x4241434E; // "BACN"
+    static final int VERSION = 3; // 2: isolated actors have separation 0, not NaN; 3: names sorted ignoring case
+
+    /**
+     * Write a snapshot of a universe, replacing any old one only once the new one is complete.
+     *
+     * @param file snapshot file to write
+     * @param g the universe
+     * @param separations average separation of each actor, indexed by id
+     * @param sources text files the universe was loaded from
+     * @throws IOException if the snapshot cannot be written, or the universe is too large for one
+     */
+    public static void write(Path file, CSRGraph g, double[] separations, Path... sources) throws IOException {
+        int n = g.numVertices(), movies = g.numMovies(), edges = g.numEdges();
+        byte[][] actorNames = new byte[n][];
+        for (int v = 0; v < n; v++) actorNames[v] = g.nameOf(v).getBytes(StandardCharsets.UTF_8);
+        byte[][] movieNames = new byte[movies][];
+        for (int m = 0; m < movies; m++) movieNames[m] = g.movieName(m).getBytes(StandardCharsets.UTF_8);
+        int[] edgeMovieOffsets = new int[edges + 1];
+        for (int edge = 0; edge < edges; edge++) edgeMovieOffsets[edge + 1] = edgeMovieOffsets[edge] + g.edgeMovies(edge).length;
+        IntBuffer byName = g.actorNames().sortedIds();
+
+        Layout layout = Layout.of(sources.length, n, movies, edges, edgeMovieOffsets[edges],
+                totalLength(actorNames), totalLength(movieNames));
+        if (layout == null) throw new IOException("universe too large for a single-mapping snapshot");
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(sources.length);
+            for (Path source : sources) {
+                buffer.putLong(Files.size(source)).putLong(Files.getLastModifiedTime(source).toMillis()).putLong(checksum(source));
+            }
+            buffer.putInt(n).putInt(movies).putInt(edges).putInt(edgeMovieOffsets[edges])
+                    .putInt(layout.actorNameBytes).putInt(layout.movieNameBytes);
+
+            IntBuffer ints = layout.ints(buffer, layout.actorNameOffsets, n + 1);
+            for (int v = 0, offset = 0; v <= n; offset += v < n ? actorNames[v].length : 0, v++) ints.put(offset);
+            ints = layout.ints(buffer, layout.movieNameOffsets, movies + 1);
+            for (int m = 0, offset = 0; m <= movies; offset += m < movies ? movieNames[m].length : 0, m++) ints.put(offset);
+            ints = layout.ints(buffer, layout.offsets, n + 1);
+            for (int v = 0; v < n; v++) ints.put(g.neighborStart(v));
+            ints.put(edges);
+            ints = layout.ints(buffer, layout.neighbors, edges);
+            for (int edge = 0; edge < edges; edge++) ints.put(g.neighborAt(edge));
+            layout.ints(buffer, layout.edgeMovieOffsets, edges + 1).put(edgeMovieOffsets);
+            ints = layout.ints(buffer, layout.edgeMovies, edgeMovieOffsets[edges]);
+            for (int edge = 0; edge < edges; edge++) ints.put(g.edgeMovies(edge));
+            ints = layout.ints(buffer, layout.nameIndex, n);
+            for (int i = 0; i < n; i++) ints.put(byName.get(i));
+            layout.doubles(buffer, layout.separations, n).put(separations);
+            ByteBuffer bytes = buffer.slice(layout.actorNameBytesStart, layout.actorNameBytes);
+            for (byte[] name : actorNames) bytes.put(name);
+            bytes = buffer.slice(layout.movieNameBytesStart, layout.movieNameBytes);
+            for (byte[] name : movieNames) bytes.put(name);
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Open a snapshot, if there is an up-to-date one.
+     *
+     * @param file snapshot file
+     * @param sources text files the universe is loaded from, in the order they were given to write
+     * @return the mapped universe, or null if the snapshot is missing, from another version, stale, or has a header
+     *         that does not fit its size
+     * @throws IOException if the snapshot exists but cannot be read
+     */
+    public static MappedCSRGraph open(Path file, Path... sources) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 12 || channel.size() > Integer.MAX_VALUE) return null;
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != sources.length) return null;
+            if (channel.size() < 12 + 24L * sources.length + 24) return null; // truncated header
+            for (Path source : sources) {
+                long size = buffer.getLong(), modified = buffer.getLong(), crc = buffer.getLong();
+                if (!Files.isRegularFile(source) || Files.size(source) != size) return null;
+                if (Files.getLastModifiedTime(source).toMillis() != modified && checksum(source) != crc) return null;
+            }
+            int n = buffer.getInt(), movies = buffer.getInt(), edges = buffer.getInt(), edgeMovies = buffer.getInt();
+            Layout layout = Layout.of(sources.length, n, movies, edges, edgeMovies, buffer.getInt(), buffer.getInt());
+            if (layout == null || layout.size != channel.size()) return null;
+            return new MappedCSRGraph(
+                    layout.ints(buffer, layout.actorNameOffsets, n + 1),
+                    buffer.slice(layout.actorNameBytesStart, layout.actorNameBytes),
+                    layout.ints(buffer, layout.movieNameOffsets, movies + 1),
+                    buffer.slice(layout.movieNameBytesStart, layout.movieNameBytes),
+                    layout.ints(buffer, layout.offsets, n + 1),
+                    layout.ints(buffer, layout.neighbors, edges),
+                    layout.ints(buffer, layout.edgeMovieOffsets, edges + 1),
+                    layout.ints(buffer, layout.edgeMovies, edgeMovies),
+                    layout.ints(buffer, layout.nameIndex, n),
+                    layout.doubles(buffer, layout.separations, n));
+        }
+    }
+
+    /**
+     * @param file file to read
+     * @return CRC32 of the file's contents
+     */
+    static long checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16);
+            while (channel.read(chunk.clear()) > 0) crc.update(chunk.flip());
+        }
+        return crc.getValue();
+    }
+
+    private static int totalLength(byte[][] arrays) throws IOException {
+        long total = 0;
+        for (byte[] array : arrays) total += array.length;
+        if (total > Integer.MAX_VALUE) throw new IOException("name table too large for a snapshot");
+        return (int) total;
+    }
+
+    /**
+     * Byte positions of each section, worked out from the counts in the header.
+     */
+    private static class Layout {
+        final int actorNameOffsets, movieNameOffsets, offsets, neighbors, edgeMovieOffsets, edgeMovies, nameIndex,
+                separations, actorNameBytesStart, movieNameBytesStart;
+        final int actorNameBytes, movieNameBytes;
+        final long size;
+
+        /**
+         * @return the layout of a snapshot with these counts, or null if one would not fit in a single mapping, or a
+         *         count is negative, as in a corrupt header
+         */
+        static Layout of(int sources, int n, int movies, int edges, int edgeMovieEntries, int actorNameBytes, int movieNameBytes) {
+            if ((sources | n | movies | edges | edgeMovieEntries | actorNameBytes | movieNameBytes) < 0) return null;
+            long position = 12 + 24L * sources + 24;
+            long[] starts = new long[10];
+            long[] lengths = {4L * n + 4, 4L * movies + 4, 4L * n + 4, 4L * edges, 4L * edges + 4,
+                    4L * edgeMovieEntries, 4L * n, 8L * n, actorNameBytes, movieNameBytes};
+            for (int i = 0; i < lengths.length; i++) {
+                position = (position + 7) & ~7L; // align every section to 8 bytes
+                starts[i] = position;
+                position += lengths[i];
+            }
+            return position > Integer.MAX_VALUE ? null : new Layout(starts, position, actorNameBytes, movieNameBytes);
+        }
+
+        private Layout(long[] starts, long size, int actorNameBytes, int movieNameBytes) {
+            this.actorNameBytes = actorNameBytes;
+            this.movieNameBytes = movieNameBytes;
+            this.size = size;
+            actorNameOffsets = (int) starts[0];
+            movieNameOffsets = (int) starts[1];
+            offsets = (int) starts[2];
+            neighbors = (int) starts[3];
+            edgeMovieOffsets = (int) starts[4];
+            edgeMovies = (int) starts[5];
+            nameIndex = (int) starts[6];
+            separations = (int) starts[7];
+            actorNameBytesStart = (int) starts[8];
+            movieNameBytesStart = (int) starts[9];
+        }
+
+        IntBuffer ints(ByteBuffer buffer, int start, int count) {
+            return buffer.slice(start, 4 * count).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+
+        DoubleBuffer doubles(ByteBuffer buffer, int start, int count) {
+            return buffer.slice(start, 8 * count).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Test class for UniverseSnapshot.java
+ * Writes a snapshot of the universe from the bundled test files, opens it, and then opens copies with corrupt or
+ * truncated headers, each of which must be refused (null) rather than crash the game. Expected output commented below
+ */
+public class UniverseSnapshotTest {
+    public static void main(String[] args) throws IOException {
+        Path[] sources = {Paths.get("bacon/actorsTest.txt"), Paths.get("bacon/moviesTest.txt"), Paths.get("bacon/movie-actorsTest.txt")};
+        CSRGraph testGraph = CSRGraph.fromCasts(BaconReader.readIDs("bacon/actorsTest.txt"),
+                BaconReader.readIDs("bacon/moviesTest.txt"), BaconReader.readMovieActors("bacon/movie-actorsTest.txt"));
+        Path file = Files.createTempFile("universe", ".snapshot");
+        try {
+            UniverseSnapshot.write(file, testGraph, new double[testGraph.numVertices()], sources);
+            byte[] good = Files.readAllBytes(file);
+
+            System.out.println("open check");
+            MappedCSRGraph mapped = UniverseSnapshot.open(file, sources);
+            System.out.println(mapped.numVertices() + " vertices, " + mapped.numEdges() + " directed edges");
+            System.out.println(graphLibrary.shortestPath(mapped, "Kevin Bacon", "Dartmouth (Earl thereof)"));
+
+            System.out.println("garbage header check");
+            int counts = 12 + 24 * sources.length; // actors, movies, edges, edge movies, name byte table sizes
+            for (int field = 0; field < 6; field++) {
+                for (int value : new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE / 4, -1, Integer.MIN_VALUE}) {
+                    ByteBuffer bad = ByteBuffer.wrap(good.clone()).order(ByteOrder.LITTLE_ENDIAN);
+                    bad.putInt(counts + 4 * field, value);
+                    System.out.println("count " + field + " = " + value + ": " + open(file, bad.array(), sources));
+                }
+            }
+            Random random = new Random(6);
+            byte[] garbage = good.clone();
+            for (int i = counts; i < counts + 24; i++) garbage[i] = (byte) random.nextInt();
+            System.out.println("random counts: " + open(file, garbage, sources));
+            System.out.println("truncated header: " + open(file, Arrays.copyOf(good, counts + 10), sources));
+            System.out.println("truncated sections: " + open(file, Arrays.copyOf(good, good.length - 8), sources));
+            byte[] magic = good.clone();
+            magic[0] ^= 1;
+            System.out.println("wrong magic: " + open(file, magic, sources));
+            System.out.println("intact: " + open(file, good, sources));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @return "refused" if UniverseSnapshot.open returns null for a snapshot of these bytes, else "opened"
+     */
+    private static String open(Path file, byte[] bytes, Path[] sources) throws IOException {
+        Files.write(file, bytes);
+        return UniverseSnapshot.open(file, sources) == null ? "refused" : "opened";
+    }
+
+    /* OUTPUT
+    open check
+    7 vertices, 14 directed edges
+    [Kevin Bacon -(A movie)- Alice -(D movie)- Charlie -(B movie)- Dartmouth (Earl thereof)]
+    garbage header check
+    count 0 = 2147483647: refused
+    count 0 = 536870911: refused
+    count 0 = -1: refused
+    count 0 = -2147483648: refused
+    count 1 = 2147483647: refused
+    count 1 = 536870911: refused
+    count 1 = -1: refused
+    count 1 = -2147483648: refused
+    count 2 = 2147483647: refused
+    count 2 = 536870911: refused
+    count 2 = -1: refused
+    count 2 = -2147483648: refused
+    count 3 = 2147483647: refused
+    count 3 = 536870911: refused
+    count 3 = -1: refused
+    count 3 = -2147483648: refused
+    count 4 = 2147483647: refused
+    count 4 = 536870911: refused
+    count 4 = -1: refused
+    count 4 = -2147483648: refused
+    count 5 = 2147483647: refused
+    count 5 = 536870911: refused
+    count 5 = -1: refused
+    count 5 = -2147483648: refused
+    random counts: refused
+    truncated header: refused
+    truncated sections: refused
+    wrong magic: refused
+    intact: opened
+     */
+}
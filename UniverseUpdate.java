@@ -0,0 +1,170 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A batch of changes to the universe: new actors and movies, and added or removed credits, all by file ID.
+ * Delta files have one change per line, with fields separated by "|":
+ *     a|actor ID|actor name     add an actor
+ *     m|movie ID|movie name     add a movie
+ *     +|movie ID|actor ID       add a credit
+ *     -|movie ID|actor ID       remove a credit
+ */
+public class UniverseUpdate {
+    private final List<String[]> changes = new ArrayList<>(); // {kind, first field, second field}
+
+    public UniverseUpdate addActor(int actorID, String name) {
+        changes.add(new String[] {"a", Integer.toString(actorID), name});
+        return this;
+    }
+
+    public UniverseUpdate addMovie(int movieID, String name) {
+        changes.add(new String[] {"m", Integer.toString(movieID), name});
+        return this;
+    }
+
+    public UniverseUpdate addCredit(int movieID, int actorID) {
+        changes.add(new String[] {"+", Integer.toString(movieID), Integer.toString(actorID)});
+        return this;
+    }
+
+    public UniverseUpdate removeCredit(int movieID, int actorID) {
+        changes.add(new String[] {"-", Integer.toString(movieID), Integer.toString(actorID)});
+        return this;
+    }
+
+    /**
+     * @return number of changes in the batch
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Read a delta file.
+     *
+     * @param fileName the file name or its path to open and read
+     * @return the batch of changes in the file
+     * @throws IOException if the file cannot be read or has a malformed line
+     */
+    public static UniverseUpdate read(String fileName) throws IOException {
+        Path file = Paths.get(fileName);
+        UniverseUpdate update = new UniverseUpdate();
+        try (BufferedReader input = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String currentLine;
+            long lineNumber = 0;
+            while ((currentLine = input.readLine()) != null) {
+                lineNumber++;
+                if (currentLine.isBlank()) continue;
+                String[] fields = currentLine.split("\\|", 3);
+                if (fields.length < 3 || !List.of("a", "m", "+", "-").contains(fields[0])) {
+                    throw new BaconReader.MalformedLineException(file, lineNumber, "expected a|, m|, +| or -| and two fields");
+                }
+                try {
+                    Integer.parseInt(fields[1]);
+                    if (fields[0].equals("+") || fields[0].equals("-")) Integer.parseInt(fields[2]);
+                } catch (NumberFormatException e) {
+                    throw new BaconReader.MalformedLineException(file, lineNumber, "ID is not an integer");
+                }
+                update.changes.add(fields);
+            }
+        }
+        return update;
+    }
+
+    /**
+     * Apply the batch to a table of casts, leaving the original unchanged. New actors and movies get the next unused
+     * ids, so the ids of existing actors and movies stay the same; a new actor whose name is already taken stays a
+     * separate actor, with its file ID appended to its name in the same "Name (#1234)" form as when loading.
+     * Unlike loading (see CastTable.distinctNames), only the new actor is renamed: existing actors keep their names,
+     * so that the current center and names already shown stay valid. Loading the updated files from scratch names
+     * both actors "Name (#ID)" instead.
+     *
+     * @param casts table to start from
+     * @param touched filled with the ids of actors whose credits actually changed
+     * @return the updated table
+     * @throws IllegalArgumentException if a credit names an unknown actor or movie; movies that had no known actors are not in
+     *         the table, so they must be added with an m line before being credited
+     */
+    public CastTable applyTo(CastTable casts, Set<Integer> touched) {
+        List<String> actorNames = new ArrayList<>(), movieNames = new ArrayList<>(); // names of those added by this batch
+        Set<String> addedNames = new HashSet<>(); // names taken by actors added by this batch
+        Map<Integer, Integer> newActorIDs = new HashMap<>(); // file ID -> id, for actors added by this batch
+        Map<Integer, Integer> movieIDs = new HashMap<>();    // file ID -> id
+        for (int m = 0; m < casts.numMovies(); m++) movieIDs.put(casts.movieFileIDs[m], m);
+        Map<Integer, TreeSet<Integer>> changedCasts = new HashMap<>(); // movie id -> its new cast
+
+        for (String[] change : changes) {
+            int first = Integer.parseInt(change[1]);
+            switch (change[0]) {
+                case "a" -> {
+                    if (casts.actorOf(first) >= 0 || newActorIDs.containsKey(first)) continue; // already known
+                    boolean taken = casts.actorNames.indexOf(change[2]) >= 0 || addedNames.contains(change[2]);
+                    String name = taken ? change[2] + " (#" + first + ")" : change[2];
+                    addedNames.add(name);
+                    newActorIDs.put(first, casts.numActors() + actorNames.size());
+                    actorNames.add(name);
+                }
+                case "m" -> {
+                    if (movieIDs.containsKey(first)) continue; // already known
+                    movieIDs.put(first, casts.numMovies() + movieNames.size());
+                    movieNames.add(change[2]);
+                }
+                default -> {
+                    int actorID = Integer.parseInt(change[2]);
+                    int actor = casts.actorOf(actorID);
+                    if (actor < 0) actor = newActorIDs.getOrDefault(actorID, -1);
+                    Integer movie = movieIDs.get(first);
+                    if (actor < 0) throw new IllegalArgumentException("unknown actor ID " + actorID);
+                    if (movie == null) throw new IllegalArgumentException("unknown movie ID " + first);
+                    TreeSet<Integer> cast = changedCasts.get(movie);
+                    if (cast == null) {
+                        cast = new TreeSet<>();
+                        if (movie < casts.numMovies()) {
+                            for (int i = casts.castOffsets[movie]; i < casts.castOffsets[movie + 1]; i++) cast.add(casts.castActors[i]);
+                        }
+                        changedCasts.put(movie, cast);
+                    }
+                    boolean changed = change[0].equals("+") ? cast.add(actor) : cast.remove(actor);
+                    if (changed) touched.add(actor);
+                }
+            }
+        }
+
+        // rebuild the grouped casts, copying the unchanged ones
+        int numMovies = casts.numMovies() + movieNames.size();
+        int[] castOffsets = new int[numMovies + 1];
+        int[] castActors = new int[casts.castActors.length + 16];
+        int size = 0;
+        for (int movie = 0; movie < numMovies; movie++) {
+            TreeSet<Integer> cast = changedCasts.get(movie);
+            int length = cast != null ? cast.size() : casts.castOffsets[movie + 1] - casts.castOffsets[movie];
+            if (size + length > castActors.length) castActors = Arrays.copyOf(castActors, Math.max(castActors.length * 2, size + length));
+            if (cast != null) for (int actor : cast) castActors[size++] = actor;
+            else {
+                System.arraycopy(casts.castActors, casts.castOffsets[movie], castActors, size, length);
+                size += length;
+            }
+            castOffsets[movie + 1] = size;
+        }
+
+        // merge the new actor IDs into the sorted ID lookup
+        int known = casts.actorFileIDs.length;
+        long[] fileIDs = new long[known + newActorIDs.size()];
+        for (int i = 0; i < known; i++) fileIDs[i] = ((long) casts.actorFileIDs[i] << 32) | casts.actorFileDense[i];
+        int k = known;
+        for (Map.Entry<Integer, Integer> entry : newActorIDs.entrySet()) fileIDs[k++] = ((long) entry.getKey() << 32) | entry.getValue();
+        Arrays.sort(fileIDs);
+        int[] actorFileIDs = new int[fileIDs.length], actorFileDense = new int[fileIDs.length];
+        for (int i = 0; i < fileIDs.length; i++) {
+            actorFileIDs[i] = (int) (fileIDs[i] >> 32);
+            actorFileDense[i] = (int) fileIDs[i];
+        }
+        int[] movieFileIDs = Arrays.copyOf(casts.movieFileIDs, numMovies);
+        for (Map.Entry<Integer, Integer> entry : movieIDs.entrySet()) movieFileIDs[entry.getValue()] = entry.getKey();
+
+        return new CastTable(casts.actorNames.append(actorNames), casts.movieNames.append(movieNames), castOffsets,
+                Arrays.copyOf(castActors, size), actorFileIDs, actorFileDense, movieFileIDs);
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Orders to number actors in before the universe is built, so that actors a search visits together sit together in
+ * memory. The files' order is arbitrary, so a BFS's neighbor scans otherwise jump all over the graph's arrays.
+ *     input:  as read, in order of file ID
+ *     degree: most co-stars first, so the few actors that most searches pass through share cache lines
+ *     bfs:    breadth-first from the actor with the most movies, expanding each movie once, so every cast is numbered
+ *             together, like Cuthill-McKee ordering; each component is started from its actor with the most movies
+ * Every order depends only on the casts, so reading the same files always numbers the actors the same way.
+ */
+public class VertexOrder {
+    /**
+     * @param casts table of casts, numbered in file order
+     * @param order input, degree or bfs
+     * @param pool pool to count co-stars in, or null to count them in this thread
+     * @return the table, renumbered in that order
+     * @throws IllegalArgumentException if there is no such order
+     */
+    public static CastTable apply(CastTable casts, String order, ForkJoinPool pool) {
+        return switch (order) {
+            case "input" -> casts;
+            case "degree" -> casts.relabel(byDegree(casts, pool));
+            case "bfs" -> casts.relabel(byBFS(casts));
+            default -> throw new IllegalArgumentException("unknown actor order " + order + ", expected input, degree or bfs");
+        };
+    }
+
+    /**
+     * @return actor ids by decreasing number of distinct co-stars, ties in increasing id order
+     */
+    static int[] byDegree(CastTable casts, ForkJoinPool pool) {
+        int n = casts.numActors();
+        int[] movieOffsets = new int[n + 1];
+        int[] moviesOf = casts.moviesByActor(movieOffsets);
+        int[] degrees = new int[n];
+        int parts = Math.max(1, Math.min(n, ParallelTasks.parts(pool)));
+        ParallelTasks.forEach(pool, parts, p -> {
+            int[] coStars = new int[16];
+            for (int v = (int) ((long) n * p / parts); v < (long) n * (p + 1) / parts; v++) {
+                int size = 0;
+                for (int i = movieOffsets[v]; i < movieOffsets[v + 1]; i++) {
+                    int movie = moviesOf[i];
+                    int length = casts.castOffsets[movie + 1] - casts.castOffsets[movie];
+                    if (size + length > coStars.length) coStars = Arrays.copyOf(coStars, Math.max(coStars.length * 2, size + length));
+                    System.arraycopy(casts.castActors, casts.castOffsets[movie], coStars, size, length);
+                    size += length;
+                }
+                // v is in the cast of each of its movies, so it is counted once among its distinct co-stars
+                degrees[v] = Math.max(0, CastTable.sortUnique(coStars, 0, size) - 1);
+            }
+        });
+        return byDecreasing(degrees);
+    }
+
+    /**
+     * @return actor ids in breadth-first order over the casts, one component after another
+     */
+    static int[] byBFS(CastTable casts) {
+        int n = casts.numActors();
+        int[] movieOffsets = new int[n + 1];
+        int[] moviesOf = casts.moviesByActor(movieOffsets);
+        int[] credits = new int[n];
+        for (int v = 0; v < n; v++) credits[v] = movieOffsets[v + 1] - movieOffsets[v];
+
+        int[] order = new int[n];
+        boolean[] placed = new boolean[n];
+        boolean[] expanded = new boolean[casts.numMovies()];
+        int size = 0;
+        for (int start : byDecreasing(credits)) {
+            if (placed[start]) continue;
+            placed[start] = true;
+            order[size++] = start;
+            for (int head = size - 1; head < size; head++) {
+                int v = order[head];
+                for (int i = movieOffsets[v]; i < movieOffsets[v + 1]; i++) {
+                    int movie = moviesOf[i];
+                    if (expanded[movie]) continue;
+                    expanded[movie] = true;
+                    for (int j = casts.castOffsets[movie]; j < casts.castOffsets[movie + 1]; j++) {
+                        int other = casts.castActors[j];
+                        if (placed[other]) continue;
+                        placed[other] = true;
+                        order[size++] = other;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @param keys one non-negative key per actor
+     * @return actor ids by decreasing key, ties in increasing id order
+     */
+    private static int[] byDecreasing(int[] keys) {
+        long[] packed = new long[keys.length];
+        for (int v = 0; v < keys.length; v++) packed[v] = ((long) (Integer.MAX_VALUE - keys[v]) << 32) | v;
+        Arrays.sort(packed);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) order[i] = (int) packed[i];
+        return order;
+    }
+}
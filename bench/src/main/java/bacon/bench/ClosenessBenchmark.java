@@ -0,0 +1,42 @@
+package bacon.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The all-sources pass that gives every actor's average separation, the slowest part of loading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ClosenessBenchmark {
+    @Param({"test", "full", "synthetic-20000"})
+    public String dataset;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private Object universe;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        pool = Pools.create(threads);
+        universe = Core.buildUniverse(Core.readColumns(Dataset.named(dataset), pool), false, pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Pools.shutdown(pool);
+    }
+
+    @Benchmark
+    public double[] averageSeparations() {
+        return Core.averageSeparations(universe, pool);
+    }
+}
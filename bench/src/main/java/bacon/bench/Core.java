@@ -0,0 +1,198 @@
+package bacon.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Typed access to the game's BenchmarkHooks. The game lives in the default package, which named packages cannot
+ * import, so each hook is looked up once as a static final MethodHandle; the JIT inlines through those just as it
+ * would through a direct call.
+ */
+final class Core {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final Class<?> HOOKS;
+
+    static {
+        try {
+            HOOKS = Class.forName("BenchmarkHooks");
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final MethodHandle READ_MAPS = hook("readMaps", Object.class, String.class, String.class, String.class);
+    private static final MethodHandle READ_COLUMNS = hook("readColumns", Object.class, String.class, String.class, String.class, ForkJoinPool.class);
+    private static final MethodHandle BUILD_UNIVERSE = hook("buildUniverse", Object.class, Object.class, boolean.class, ForkJoinPool.class);
+    private static final MethodHandle BUILD_LAYOUT = hook("buildLayout", Object.class, Object.class, String.class, String.class, ForkJoinPool.class);
+    private static final MethodHandle FOOTPRINT = hook("footprint", long.class, Object.class);
+    private static final MethodHandle NEW_GAME = hook("newGame", Object.class, String.class, String.class, String.class, String[].class);
+    private static final MethodHandle INDEX_OF = hook("indexOf", int.class, Object.class, String.class);
+    private static final MethodHandle NAME_OF = hook("nameOf", String.class, Object.class, int.class);
+    private static final MethodHandle NUM_VERTICES = hook("numVertices", int.class, Object.class);
+    private static final MethodHandle NEW_BFS_RESULT = hook("newBFSResult", Object.class, Object.class);
+    private static final MethodHandle BFS = hook("bfs", int.class, Object.class, int.class, Object.class);
+    private static final MethodHandle PARALLEL_BFS = hook("parallelBfs", int.class, Object.class, int.class, Object.class, ForkJoinPool.class);
+    private static final MethodHandle BFS_TREE = hook("bfsTree", Object.class, Object.class, String.class);
+    private static final MethodHandle GET_PATH = hook("getPath", Object.class, Object.class, String.class);
+    private static final MethodHandle AVERAGE_SEPARATION = hook("averageSeparation", double.class, Object.class, String.class);
+    private static final MethodHandle SHORTEST_PATH = hook("shortestPath", Object.class, Object.class, String.class, String.class, Object.class, Object.class);
+    private static final MethodHandle AVERAGE_SEPARATIONS = hook("averageSeparations", double[].class, Object.class, ForkJoinPool.class);
+
+    private Core() {
+    }
+
+    private static MethodHandle hook(String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            return LOOKUP.findStatic(HOOKS, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Rethrow whatever a hook threw, unchecked, so benchmark methods need no throws clauses of their own.
+     */
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new IllegalStateException(t);
+    }
+
+    static Object readMaps(Dataset data) {
+        try {
+            return (Object) READ_MAPS.invokeExact(data.actors, data.movies, data.movieActors);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object readColumns(Dataset data, ForkJoinPool pool) {
+        try {
+            return (Object) READ_COLUMNS.invokeExact(data.actors, data.movies, data.movieActors, pool);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object buildUniverse(Object casts, boolean bipartite, ForkJoinPool pool) {
+        try {
+            return (Object) BUILD_UNIVERSE.invokeExact(casts, bipartite, pool);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object buildLayout(Object casts, String layout, String order, ForkJoinPool pool) {
+        try {
+            return (Object) BUILD_LAYOUT.invokeExact(casts, layout, order, pool);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static long footprint(Object universe) {
+        try {
+            return (long) FOOTPRINT.invokeExact(universe);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newGame(Dataset data, String... flags) {
+        try {
+            return (Object) NEW_GAME.invokeExact(data.actors, data.movies, data.movieActors, flags);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int indexOf(Object universe, String name) {
+        try {
+            return (int) INDEX_OF.invokeExact(universe, name);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String nameOf(Object universe, int v) {
+        try {
+            return (String) NAME_OF.invokeExact(universe, v);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int numVertices(Object universe) {
+        try {
+            return (int) NUM_VERTICES.invokeExact(universe);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newBFSResult(Object universe) {
+        try {
+            return (Object) NEW_BFS_RESULT.invokeExact(universe);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int bfs(Object universe, int source, Object result) {
+        try {
+            return (int) BFS.invokeExact(universe, source, result);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int parallelBfs(Object universe, int source, Object result, ForkJoinPool pool) {
+        try {
+            return (int) PARALLEL_BFS.invokeExact(universe, source, result, pool);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object bfsTree(Object universe, String source) {
+        try {
+            return (Object) BFS_TREE.invokeExact(universe, source);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object getPath(Object tree, String actor) {
+        try {
+            return (Object) GET_PATH.invokeExact(tree, actor);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static double averageSeparation(Object tree, String root) {
+        try {
+            return (double) AVERAGE_SEPARATION.invokeExact(tree, root);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object shortestPath(Object universe, String a, String b, Object forward, Object backward) {
+        try {
+            return (Object) SHORTEST_PATH.invokeExact(universe, a, b, forward, backward);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static double[] averageSeparations(Object universe, ForkJoinPool pool) {
+        try {
+            return (double[]) AVERAGE_SEPARATIONS.invokeExact(universe, pool);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package bacon.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * The three input files of one benchmark universe, named by a benchmark's dataset parameter:
+ * <ul>
+ *     <li>test: actorsTest.txt, moviesTest.txt, movie-actorsTest.txt, the seven-actor universe from the assignment</li>
+ *     <li>full: actors.txt, movies.txt, movie-actors.txt, the full course universe</li>
+ *     <li>synthetic-N: a generated universe of N actors, written once to the temporary directory and reused</li>
+ * </ul>
+ * The test and full files are looked up in the directory given by -Dbacon.data, by default the working directory,
+ * so run the benchmarks from the top of the repository or pass -Dbacon.data.
+ */
+final class Dataset {
+    private static final String SYNTHETIC = "synthetic-";
+    private static final long SEED = 42;
+
+    final String actors, movies, movieActors;
+
+    private Dataset(Path directory, String suffix) {
+        actors = directory.resolve("actors" + suffix + ".txt").toString();
+        movies = directory.resolve("movies" + suffix + ".txt").toString();
+        movieActors = directory.resolve("movie-actors" + suffix + ".txt").toString();
+    }
+
+    /**
+     * @param name test, full or synthetic-N
+     * @return that dataset's files, generating them first for a synthetic dataset
+     */
+    static Dataset named(String name) {
+        if (name.equals("test")) return new Dataset(dataDirectory(), "Test");
+        if (name.equals("full")) return new Dataset(dataDirectory(), "");
+        if (name.startsWith(SYNTHETIC)) return synthetic(Integer.parseInt(name.substring(SYNTHETIC.length())));
+        throw new IllegalArgumentException("unknown dataset " + name + ", expected test, full or synthetic-N");
+    }
+
+    private static Path dataDirectory() {
+        return Paths.get(System.getProperty("bacon.data", "."));
+    }
+
+    /**
+     * A universe shaped roughly like the full one: three movies for every four actors, casts of one to five actors,
+     * and a skewed popularity so that a few actors are in many movies and most of the universe is connected.
+     * The same number of actors always gives the same files.
+     */
+    private static synchronized Dataset synthetic(int numActors) {
+        Path directory = Paths.get(System.getProperty("java.io.tmpdir"), "bacon-" + SYNTHETIC + numActors);
+        Dataset data = new Dataset(directory, "");
+        if (Files.exists(Paths.get(data.movieActors))) return data;
+        try {
+            Files.createDirectories(directory);
+            SplittableRandom random = new SplittableRandom(SEED);
+            int numMovies = Math.max(1, numActors * 3 / 4);
+            try (BufferedWriter out = Files.newBufferedWriter(Paths.get(data.actors), StandardCharsets.UTF_8)) {
+                for (int a = 1; a <= numActors; a++) out.write(a + "|Actor " + a + "\n");
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(Paths.get(data.movies), StandardCharsets.UTF_8)) {
+                for (int m = 1; m <= numMovies; m++) out.write(m + "|Movie " + m + " (" + (1920 + random.nextInt(100)) + ")\n");
+            }
+            // written to a temporary name and moved, so an interrupted run never leaves half a dataset behind
+            Path credits = Paths.get(data.movieActors + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(credits, StandardCharsets.UTF_8)) {
+                for (int m = 1; m <= numMovies; m++) {
+                    int[] cast = new int[Math.min(numActors, 1 + random.nextInt(5))];
+                    for (int i = 0; i < cast.length; i++) {
+                        int actor;
+                        do {
+                            double u = random.nextDouble();
+                            actor = 1 + (int) (numActors * u * u * u); // cubing favors low ids
+                        } while (contains(cast, i, actor));
+                        cast[i] = actor;
+                        out.write(m + "|" + actor + "\n");
+                    }
+                }
+            }
+            Files.move(credits, Paths.get(data.movieActors));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return data;
+    }
+
+    private static boolean contains(int[] cast, int size, int actor) {
+        for (int i = 0; i < size; i++) {
+            if (cast[i] == actor) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,121 @@
+package bacon.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The universe's storage layouts (CSR rows, compressed rows, bipartite incidence lists) with actors numbered in each
+ * of the game's orders (see the --order flag): building one, one BFS with the allocation-free kernel, and the
+ * all-sources pass. Each trial prints the universe's estimated footprint, so the layouts' sizes can be compared too.
+ * BFS sources are the same actors, by name, for every layout and order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LayoutBenchmark {
+    private static final int NUM_ACTORS = 64;
+
+    /**
+     * A universe to build and search, with BFS sources from its largest component.
+     */
+    @State(Scope.Benchmark)
+    public static class Search {
+        @Param({"full", "synthetic-200000"})
+        public String dataset;
+
+        @Param({"csr", "compressed", "bipartite"})
+        public String layout;
+
+        @Param({"input", "degree", "bfs"})
+        public String order;
+
+        ForkJoinPool pool;
+        Object casts, universe, result;
+        int[] ids;          // actors of the largest component
+        int next;
+
+        @Setup
+        public void setUp() {
+            pool = Pools.create(1);
+            casts = Core.readColumns(Dataset.named(dataset), pool);
+            universe = Core.buildLayout(casts, layout, order, pool);
+            result = Core.newBFSResult(universe);
+            System.out.printf("%n%s universe numbered in %s order: %.1f MB%n", layout, order,
+                    Core.footprint(universe) / (double) (1 << 20));
+
+            // random actors that reach at least half of the universe are all in its largest component; they are
+            // picked in file order (from bipartite lists, the quickest to build) and found in the universe by name
+            Object inFileOrder = Core.buildUniverse(casts, true, pool);
+            Object scratch = Core.newBFSResult(inFileOrder);
+            int n = Core.numVertices(universe);
+            SplittableRandom random = new SplittableRandom(42);
+            ids = new int[NUM_ACTORS];
+            for (int found = 0, tries = 0; found < NUM_ACTORS; tries++) {
+                if (tries > 100 * NUM_ACTORS) throw new IllegalStateException(dataset + " has no component of half its actors");
+                int v = random.nextInt(n);
+                if (2 * Core.bfs(inFileOrder, v, scratch) < n) continue;
+                ids[found++] = Core.indexOf(universe, Core.nameOf(inFileOrder, v));
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            Pools.shutdown(pool);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object build(Search search) {
+        return Core.buildLayout(search.casts, search.layout, search.order, search.pool);
+    }
+
+    @Benchmark
+    public int bfs(Search search) {
+        search.next = (search.next + 1) % NUM_ACTORS;
+        return Core.bfs(search.universe, search.ids[search.next], search.result);
+    }
+
+    /**
+     * The all-sources pass, on datasets small enough to run it many times.
+     */
+    @State(Scope.Benchmark)
+    public static class Closeness {
+        @Param({"full", "synthetic-20000"})
+        public String dataset;
+
+        @Param({"csr", "compressed", "bipartite"})
+        public String layout;
+
+        @Param({"input", "degree", "bfs"})
+        public String order;
+
+        @Param({"1", "0"})
+        public int threads;
+
+        ForkJoinPool pool;
+        Object universe;
+
+        @Setup
+        public void setUp() {
+            pool = Pools.create(threads);
+            universe = Core.buildLayout(Core.readColumns(Dataset.named(dataset), pool), layout, order, pool);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Pools.shutdown(pool);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double[] averageSeparations(Closeness closeness) {
+        return Core.averageSeparations(closeness.universe, closeness.pool);
+    }
+}
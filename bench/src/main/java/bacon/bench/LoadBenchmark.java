@@ -0,0 +1,48 @@
+package bacon.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Building the universe from casts that are already in memory, as a CSR graph of co-star edges or as bipartite
+ * actor-movie incidence lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({"full", "synthetic-200000"})
+    public String dataset;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private Object casts;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        pool = Pools.create(threads);
+        casts = Core.readColumns(Dataset.named(dataset), pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Pools.shutdown(pool);
+    }
+
+    @Benchmark
+    public Object buildCSR() {
+        return Core.buildUniverse(casts, false, pool);
+    }
+
+    @Benchmark
+    public Object buildBipartite() {
+        return Core.buildUniverse(casts, true, pool);
+    }
+}
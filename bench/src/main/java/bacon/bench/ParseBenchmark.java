@@ -0,0 +1,47 @@
+package bacon.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Reading the three input files: the original line-by-line map readers against the byte-level column readers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"test", "full", "synthetic-200000"})
+    public String dataset;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private Dataset data;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        data = Dataset.named(dataset);
+        pool = Pools.create(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Pools.shutdown(pool);
+    }
+
+    @Benchmark
+    public Object readMaps() {
+        return Core.readMaps(data);
+    }
+
+    @Benchmark
+    public Object readColumns() {
+        return Core.readColumns(data, pool);
+    }
+}
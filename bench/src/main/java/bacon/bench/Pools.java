@@ -0,0 +1,23 @@
+package bacon.bench;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Pools for the benchmarks' threads parameter, chosen the way the game's --threads flag chooses them.
+ */
+final class Pools {
+    private Pools() {
+    }
+
+    /**
+     * @param threads number of worker threads, or 0 for the common pool
+     * @return a pool of that many workers
+     */
+    static ForkJoinPool create(int threads) {
+        return threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+    }
+
+    static void shutdown(ForkJoinPool pool) {
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+    }
+}
@@ -0,0 +1,100 @@
+package bacon.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The per-query paths of the game: one BFS with the allocation-free kernel, with the direction-optimizing
+ * ParallelBFS and with the generic graphLibrary tree, a path lookup and an average separation on that tree, and a bidirectional shortest path.
+ * Sources and targets cycle through actors of the largest component, so every search covers most of the universe.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int NUM_ACTORS = 64;
+
+    @Param({"full", "synthetic-200000"})
+    public String dataset;
+
+    @Param({"1", "0"})
+    public int threads;         // of parallelBfs only
+
+    private Object universe;
+    private ForkJoinPool pool;
+    private int[] ids;          // actors of the largest component
+    private String[] names;     // and their names
+    private Object result, forward, backward;
+    private Object tree;        // BFS tree from names[0]
+    private int next;
+
+    @Setup
+    public void setUp() {
+        pool = Pools.create(threads);
+        universe = Core.buildUniverse(Core.readColumns(Dataset.named(dataset), null), false, null);
+        result = Core.newBFSResult(universe);
+        forward = Core.newBFSResult(universe);
+        backward = Core.newBFSResult(universe);
+
+        // random actors that reach at least half of the universe are all in its largest component
+        int n = Core.numVertices(universe);
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new int[NUM_ACTORS];
+        names = new String[NUM_ACTORS];
+        for (int found = 0, tries = 0; found < NUM_ACTORS; tries++) {
+            if (tries > 100 * NUM_ACTORS) throw new IllegalStateException(dataset + " has no component of half its actors");
+            int v = random.nextInt(n);
+            if (2 * Core.bfs(universe, v, result) < n) continue;
+            ids[found] = v;
+            names[found++] = Core.nameOf(universe, v);
+        }
+        tree = Core.bfsTree(universe, names[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Pools.shutdown(pool);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % NUM_ACTORS;
+        return next;
+    }
+
+    @Benchmark
+    public int bfs() {
+        return Core.bfs(universe, ids[nextIndex()], result);
+    }
+
+    @Benchmark
+    public int parallelBfs() {
+        return Core.parallelBfs(universe, ids[nextIndex()], result, pool);
+    }
+
+    @Benchmark
+    public Object bfsTree() {
+        return Core.bfsTree(universe, names[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object getPath() {
+        return Core.getPath(tree, names[nextIndex()]);
+    }
+
+    @Benchmark
+    public double averageSeparation() {
+        return Core.averageSeparation(tree, names[0]);
+    }
+
+    @Benchmark
+    public Object shortestPath() {
+        int i = nextIndex();
+        return Core.shortestPath(universe, names[i], names[(i + NUM_ACTORS / 2) % NUM_ACTORS], forward, backward);
+    }
+}
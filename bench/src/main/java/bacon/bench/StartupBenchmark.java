@@ -0,0 +1,35 @@
+package bacon.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Everything the game does before its first prompt: reading, building, and every actor's average separation.
+ * The snapshot is turned off, so each run loads from the text files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+    @Param({"test", "full"})
+    public String dataset;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private Dataset data;
+
+    @Setup
+    public void setUp() {
+        data = Dataset.named(dataset);
+    }
+
+    @Benchmark
+    public Object newGame() {
+        return Core.newGame(data, "--no-snapshot", "--threads=" + threads);
+    }
+}
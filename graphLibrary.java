@@ -11,14 +11,26 @@ import java.io.*;
 public class graphLibrary {
     /**
      * Mirrors BFS method of GraphTraversal.java but implements backTrack with a Graph (path tree) instead of a HashMap.
+     * Searches of an IndexedGraph run on the array-based bfs below and only build the tree at the end.
      *
      * @param g graph to search
      * @param source starting vertex
      * @return a graph containing the BFS tree named backTrack
      */
+    @SuppressWarnings("unchecked")
     public static <V,E> Graph<V,E> bfs(Graph<V,E> g, V source) {
         Graph<V, E> backTrack = new AdjacencyMapGraph<>(); //initialize backTrack as a graph
         backTrack.insertVertex(source);
+        if (g instanceof IndexedGraph) {
+            IndexedGraph indexed = (IndexedGraph) g;
+            BFSResult result = bfs(indexed, indexed.indexOf((String) source), new BFSResult(g.numVertices()));
+            for (int i = 1; i < result.size(); i++) { // parents are always reached before their children
+                int v = result.vertexAt(i);
+                backTrack.insertVertex((V) indexed.nameOf(v));
+                backTrack.insertDirected((V) indexed.nameOf(v), (V) indexed.nameOf(result.parent(v)), null);
+            }
+            return backTrack;
+        }
         Set<V> visited = new HashSet<V>();
         Queue<V> queue = new LinkedList<V>();
 
@@ -39,6 +51,157 @@ public class graphLibrary {
         return backTrack;
     }
 
+    /**
+     * BFS over an IndexedGraph that fills a reusable result instead of building a tree.
+     * Allocates nothing once the result's scratch buffers have grown to fit the graph.
+     * Bipartite graphs are searched actor -> movie -> actor, expanding each movie only once.
+     *
+     * @param g graph to search
+     * @param source starting actor id
+     * @param result result to refill, with capacity for every actor of g
+     * @return result
+     */
+    public static BFSResult bfs(IndexedGraph g, int source, BFSResult result) {
+        if (result.capacity() < g.numVertices()) throw new IllegalArgumentException("BFSResult too small for graph");
+        if (!(g instanceof CSRGraph) && result.neighbors.length < g.maxNeighbors()) result.neighbors = new int[g.maxNeighbors()];
+        if (g instanceof BipartiteGraph && result.movieMarks.length < g.numMovies()) result.movieMarks = new int[g.numMovies()];
+        GameEvents.BFS event = new GameEvents.BFS();
+        event.begin();
+        result.reset(source);
+        int[] parent = result.parent, dist = result.dist, stamp = result.stamp, queue = result.order;
+        int epoch = result.epoch;
+        int head = 0, tail = 0;
+        long edges = 0; // scanned, for the metrics
+
+        queue[tail++] = source;
+        stamp[source] = epoch;
+        dist[source] = 0;
+        parent[source] = -1;
+        while (head < tail) {
+            int u = queue[head++];
+            if (g instanceof CSRGraph csr) { // walk the row in place
+                edges += csr.degree(u);
+                for (int edge = csr.neighborStart(u); edge < csr.neighborEnd(u); edge++) {
+                    int v = csr.neighborAt(edge);
+                    if (stamp[v] != epoch) {
+                        stamp[v] = epoch;
+                        parent[v] = u;
+                        dist[v] = dist[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            } else {
+                int size = g instanceof BipartiteGraph bipartite
+                        ? bipartite.neighbors(u, result.neighbors, result.movieMarks, epoch)
+                        : g.neighbors(u, result.neighbors);
+                edges += size;
+                for (int i = 0; i < size; i++) {
+                    int v = result.neighbors[i];
+                    if (stamp[v] != epoch) {
+                        stamp[v] = epoch;
+                        parent[v] = u;
+                        dist[v] = dist[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+        }
+        result.size = tail;
+        result.indexLevels();
+        GameMetrics.countBFS(tail, edges);
+        event.source = source;
+        event.reached = tail;
+        event.edges = edges;
+        event.commit();
+        return result;
+    }
+
+    /**
+     * Shortest path between two actors by bidirectional BFS, without building a BFS tree of the universe.
+     * Grows a search from each end one whole level at a time, always the one with the smaller frontier, and stops at
+     * the first level where the two searches meet, so a typical query only touches the neighborhoods of the two ends.
+     *
+     * @param g graph to search
+     * @param a actor at the start of the path
+     * @param b actor at the end of the path
+     * @return the path from a to b with a shared movie for each hop, or null if either is missing or they are not connected
+     */
+    public static ActorPath shortestPath(IndexedGraph g, String a, String b) {
+        return shortestPath(g, a, b, new BFSResult(g.numVertices()), new BFSResult(g.numVertices()));
+    }
+
+    /**
+     * As above, reusing two BFS results as scratch space so that repeated queries allocate only the path.
+     *
+     * @param g graph to search
+     * @param a actor at the start of the path
+     * @param b actor at the end of the path
+     * @param forward scratch for the search from a, with capacity for every actor of g
+     * @param backward scratch for the search from b, with capacity for every actor of g
+     * @return the path from a to b with a shared movie for each hop, or null if either is missing or they are not connected
+     */
+    public static ActorPath shortestPath(IndexedGraph g, String a, String b, BFSResult forward, BFSResult backward) {
+        int source = g.indexOf(a), target = g.indexOf(b);
+        if (source < 0 || target < 0) return null;
+        for (BFSResult side : new BFSResult[] {forward, backward}) {
+            if (side.capacity() < g.numVertices()) throw new IllegalArgumentException("BFSResult too small for graph");
+            if (side.neighbors.length < g.maxNeighbors()) side.neighbors = new int[g.maxNeighbors()];
+            if (g instanceof BipartiteGraph && side.movieMarks.length < g.numMovies()) side.movieMarks = new int[g.numMovies()];
+        }
+        forward.reset(source);
+        backward.reset(target);
+        for (BFSResult side : new BFSResult[] {forward, backward}) {
+            int start = side.source();
+            side.order[side.size++] = start;
+            side.stamp[start] = side.epoch;
+            side.dist[start] = 0;
+            side.parent[start] = -1;
+        }
+        int meet = source == target ? source : -1;
+        int forwardLevel = 0, backwardLevel = 0; // start of each search's current frontier in its order array
+        while (meet < 0 && forwardLevel < forward.size && backwardLevel < backward.size) {
+            boolean forwardSmaller = forward.size - forwardLevel <= backward.size - backwardLevel;
+            BFSResult self = forwardSmaller ? forward : backward, other = forwardSmaller ? backward : forward;
+            int end = self.size, best = Integer.MAX_VALUE;
+            for (int i = forwardSmaller ? forwardLevel : backwardLevel; i < end; i++) { // expand the whole level
+                int u = self.order[i];
+                int size = g instanceof BipartiteGraph bipartite
+                        ? bipartite.neighbors(u, self.neighbors, self.movieMarks, self.epoch)
+                        : g.neighbors(u, self.neighbors);
+                for (int j = 0; j < size; j++) {
+                    int v = self.neighbors[j];
+                    if (self.stamp[v] == self.epoch) continue;
+                    self.stamp[v] = self.epoch;
+                    self.parent[v] = u;
+                    self.dist[v] = self.dist[u] + 1;
+                    self.order[self.size++] = v;
+                    if (other.stamp[v] == other.epoch && self.dist[v] + other.dist[v] < best) { // the searches meet
+                        best = self.dist[v] + other.dist[v];
+                        meet = v;
+                    }
+                }
+            }
+            if (forwardSmaller) forwardLevel = end;
+            else backwardLevel = end;
+        }
+        GameMetrics.countPath(forward.size + backward.size);
+        if (meet < 0) return null;
+
+        // join the two halves at the meeting actor
+        LinkedList<Integer> ids = new LinkedList<>();
+        for (int v = meet; v >= 0; v = forward.parent[v]) ids.addFirst(v);
+        for (int v = backward.parent[meet]; v >= 0; v = backward.parent[v]) ids.addLast(v);
+        List<String> actors = new ArrayList<>();
+        List<String> movies = new ArrayList<>();
+        Integer previous = null;
+        for (int v : ids) {
+            if (previous != null) movies.add(g.movieName(g.sharedMovies(previous, v)[0]));
+            actors.add(g.nameOf(v));
+            previous = v;
+        }
+        return new ActorPath(actors, movies);
+    }
+
     /**
      * Given a BFS tree and vertex, return the path from the vertex to the root
      *
@@ -90,11 +253,12 @@ public class graphLibrary {
      *
      * @param tree BFS tree containing paths directed toward root
      * @param root initially passed the root of the BFS tree, but is just a vertex in recursive calls
-     * @return the average distance-from-root (separation) in tree
+     * @return the average distance-from-root (separation) in tree, or 0 if the root is alone in it
      */
     public static <V,E> double averageSeparation(Graph<V,E> tree, V root) {
         double total = averageSeparationHelper(tree, root, 1);
         int n = tree.numVertices()-1;
+        if (n == 0) return 0; // an actor connected to no one is separated from no one
         return total/n;
     }
 